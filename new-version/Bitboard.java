@@ -0,0 +1,281 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Bitboard is a compact game state for lookahead search. Occupied cells are
+ * bits in a few longs, the body is a ring buffer of cell indices, and a
+ * Zobrist hash of the visible position is kept up to date incrementally.
+ * Moves are made and unmade in place through an internal undo stack, so a
+ * search walks the tree without copying the board; copyFrom() clones it when
+ * a search needs an independent copy.
+ */
+public class Bitboard {
+
+  static final int COLUMNS = SnakeModel.COLUMNS;
+  static final int ROWS = SnakeModel.ROWS;
+  static final int CELLS = COLUMNS * ROWS;
+  static final int WORDS = (CELLS + 63) / 64;
+
+  // Deepest line of moves that can be unmade
+  static final int MAX_DEPTH = 1024;
+
+  // Random keys for Zobrist hashing, fixed so hashes are stable across runs
+  private static final long[] BODY_KEYS = new long[CELLS];
+  private static final long[] HEAD_KEYS = new long[CELLS];
+  private static final long[] APPLE_KEYS = new long[CELLS + 1];
+  private static final long[] DIRECTION_KEYS = new long[4];
+
+  static {
+    SplittableRandom keys = new SplittableRandom(0x5A4B3C2D1E0FL);
+    for (int i = 0; i < CELLS; i++) {
+      BODY_KEYS[i] = keys.nextLong();
+      HEAD_KEYS[i] = keys.nextLong();
+      APPLE_KEYS[i] = keys.nextLong();
+    }
+    APPLE_KEYS[CELLS] = keys.nextLong();
+    for (int i = 0; i < 4; i++) {
+      DIRECTION_KEYS[i] = keys.nextLong();
+    }
+  }
+
+  final long[] occupied = new long[WORDS];
+  final short[] body = new short[CELLS];
+  int head;
+  int length;
+  int direction;
+  int apple;
+  int score;
+  boolean alive;
+  long seed;
+  long hash;
+
+  // Whether moving off the board is fatal, from the model's rule set
+  boolean walls;
+
+  // Undo stack: packed move record, hash and generator state before each move
+  private final int[] undoMove = new int[MAX_DEPTH];
+  private final long[] undoHash = new long[MAX_DEPTH];
+  private final long[] undoSeed = new long[MAX_DEPTH];
+  private int depth;
+
+  /**
+   * Loads the position of a SnakeModel, clearing the undo stack. Obstacles of
+   * the model's rule set are marked occupied for good.
+   */
+  public void load(SnakeModel model) {
+    Arrays.fill(occupied, 0);
+    for (int cell = 0; cell < CELLS; cell++) {
+      if (model.rules.isObstacle(cell)) {
+        occupied[cell >>> 6] |= 1L << cell;
+      }
+    }
+    walls = model.rules.walls;
+    length = model.bodyParts;
+    head = length - 1;
+    for (int i = 0; i < length; i++) {
+      int cell = SnakeModel.cellOf(model.x[i], model.y[i]);
+      body[head - i] = (short) cell;
+      occupied[cell >>> 6] |= 1L << cell;
+    }
+    direction = model.direction;
+    apple = SnakeModel.cellOf(model.appleX, model.appleY);
+    score = model.appleEaten;
+    alive = model.alive;
+    seed = model.seed;
+    depth = 0;
+    hash = computeHash();
+  }
+
+  /**
+   * Copies another board, including its undo stack.
+   */
+  public void copyFrom(Bitboard other) {
+    System.arraycopy(other.occupied, 0, occupied, 0, WORDS);
+    // Only the live part of the ring is needed
+    int tail = other.head - other.length + 1;
+    if (tail >= 0) {
+      System.arraycopy(other.body, tail, body, tail, other.length);
+    } else {
+      System.arraycopy(other.body, 0, body, 0, other.head + 1);
+      System.arraycopy(other.body, tail + CELLS, body, tail + CELLS, -tail);
+    }
+    head = other.head;
+    length = other.length;
+    direction = other.direction;
+    apple = other.apple;
+    score = other.score;
+    alive = other.alive;
+    seed = other.seed;
+    hash = other.hash;
+    walls = other.walls;
+    depth = other.depth;
+    System.arraycopy(other.undoMove, 0, undoMove, 0, depth);
+    System.arraycopy(other.undoHash, 0, undoHash, 0, depth);
+    System.arraycopy(other.undoSeed, 0, undoSeed, 0, depth);
+  }
+
+  /**
+   * Plays one tick with the given direction, following SnakeModel's turn and
+   * step rules. A move that kills the snake only marks it dead.
+   *
+   * @return A combination of SnakeModel.ATE and SnakeModel.DIED
+   * @throws IllegalStateException if MAX_DEPTH moves are already made
+   */
+  public int make(int newDirection) {
+    if (depth == MAX_DEPTH) {
+      throw new IllegalStateException("More than " + MAX_DEPTH + " moves made without unmake()");
+    }
+    int previousDirection = direction;
+    undoHash[depth] = hash;
+    undoSeed[depth] = seed;
+
+    if ((newDirection ^ direction) != 1) {
+      hash ^= DIRECTION_KEYS[direction] ^ DIRECTION_KEYS[newDirection];
+      direction = newDirection;
+    }
+
+    int headCell = body[head];
+    int newHead = neighbour(headCell, direction);
+    boolean ate = newHead == apple;
+    int tailCell = body[tailIndex()];
+
+    // The tail moves out of the way unless the snake grows
+    boolean died = (walls && crossesEdge(headCell, direction)) || (isOccupied(newHead) && (ate || newHead != tailCell));
+    undoMove[depth++] = tailCell | previousDirection << 10 | (ate ? 1 << 12 : 0) | (died ? 1 << 13 : 0)
+        | apple << 14;
+    if (died) {
+      alive = false;
+      return SnakeModel.DIED;
+    }
+
+    if (!ate) {
+      occupied[tailCell >>> 6] &= ~(1L << tailCell);
+      hash ^= BODY_KEYS[tailCell];
+    }
+    hash ^= HEAD_KEYS[headCell] ^ HEAD_KEYS[newHead] ^ BODY_KEYS[newHead];
+    head = head == CELLS - 1 ? 0 : head + 1;
+    body[head] = (short) newHead;
+    occupied[newHead >>> 6] |= 1L << newHead;
+
+    if (ate) {
+      length++;
+      score++;
+      hash ^= APPLE_KEYS[apple];
+      placeApple();
+      hash ^= APPLE_KEYS[apple];
+      return SnakeModel.ATE;
+    }
+    return 0;
+  }
+
+  /**
+   * Takes back the last move made.
+   */
+  public void unmake() {
+    int move = undoMove[--depth];
+    hash = undoHash[depth];
+    seed = undoSeed[depth];
+    direction = (move >>> 10) & 3;
+
+    if ((move & 1 << 13) != 0) {
+      alive = true;
+      return;
+    }
+
+    int newHead = body[head];
+    occupied[newHead >>> 6] &= ~(1L << newHead);
+    head = head == 0 ? CELLS - 1 : head - 1;
+    if ((move & 1 << 12) != 0) {
+      length--;
+      score--;
+      apple = move >>> 14;
+    } else {
+      int tailCell = move & 0x3FF;
+      occupied[tailCell >>> 6] |= 1L << tailCell;
+    }
+  }
+
+  /**
+   * Number of moves that can currently be unmade.
+   */
+  public int depth() {
+    return depth;
+  }
+
+  /**
+   * Cell index of the head.
+   */
+  public int headCell() {
+    return body[head];
+  }
+
+  public boolean isOccupied(int cell) {
+    return (occupied[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  /**
+   * Cell reached by moving one step from a cell, wrapping around the edges.
+   */
+  static int neighbour(int cell, int dir) {
+    int row = cell / COLUMNS;
+    int column = cell - row * COLUMNS;
+    switch (dir) {
+      case SnakeModel.UP -> row = row == 0 ? ROWS - 1 : row - 1;
+      case SnakeModel.DOWN -> row = row == ROWS - 1 ? 0 : row + 1;
+      case SnakeModel.LEFT -> column = column == 0 ? COLUMNS - 1 : column - 1;
+      case SnakeModel.RIGHT -> column = column == COLUMNS - 1 ? 0 : column + 1;
+    }
+    return row * COLUMNS + column;
+  }
+
+  /**
+   * Whether moving one step from a cell leaves the board.
+   */
+  static boolean crossesEdge(int cell, int dir) {
+    return switch (dir) {
+      case SnakeModel.UP -> cell < COLUMNS;
+      case SnakeModel.DOWN -> cell >= CELLS - COLUMNS;
+      case SnakeModel.LEFT -> cell % COLUMNS == 0;
+      default -> cell % COLUMNS == COLUMNS - 1;
+    };
+  }
+
+  /**
+   * Recomputes the hash from scratch, for loading and verification.
+   */
+  long computeHash() {
+    long h = DIRECTION_KEYS[direction] ^ HEAD_KEYS[body[head]] ^ APPLE_KEYS[apple];
+    for (int i = 0; i < length; i++) {
+      int index = head - i;
+      h ^= BODY_KEYS[body[index < 0 ? index + CELLS : index]];
+    }
+    return h;
+  }
+
+  private int tailIndex() {
+    int tail = head - length + 1;
+    return tail < 0 ? tail + CELLS : tail;
+  }
+
+  /**
+   * Places the apple on a free cell with the same draws as SnakeModel.
+   */
+  private void placeApple() {
+    if (length >= CELLS) {
+      apple = CELLS;
+      return;
+    }
+    int cell;
+    do {
+      int column = nextInt(COLUMNS);
+      int row = nextInt(ROWS);
+      cell = row * COLUMNS + column;
+    } while (isOccupied(cell));
+    apple = cell;
+  }
+
+  private int nextInt(int bound) {
+    seed += SnakeModel.SEED_INCREMENT;
+    return SnakeModel.draw(seed, bound);
+  }
+}
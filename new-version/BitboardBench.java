@@ -0,0 +1,120 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * BitboardBench checks Bitboard against SnakeModel and measures how many
+ * nodes per second an exhaustive make/unmake search visits, with and without
+ * a Zobrist-keyed transposition table.
+ *
+ * Usage: java BitboardBench [depth]
+ */
+public class BitboardBench {
+
+  // Transposition table of visited hashes, open addressing
+  private static final int TABLE_BITS = 20;
+  private static final long[] table = new long[1 << TABLE_BITS];
+
+  private static long nodes;
+  private static long transpositions;
+
+  public static void main(String[] args) {
+    int depth = args.length > 0 ? Integer.parseInt(args[0]) : 13;
+
+    for (RuleSet rules : new RuleSet[] { RuleSet.WRAP, RuleSet.WALLS, RuleSet.OBSTACLES, LevelPack.generate(7) }) {
+      System.out.println("Matches SnakeModel (" + rules.name + "): " + matchesModel(rules, 20_000));
+    }
+
+    SnakeModel model = new SnakeModel();
+    model.reset(3);
+    Bitboard board = new Bitboard();
+    board.load(model);
+
+    for (boolean useTable : new boolean[] { false, true }) {
+      for (int pass = 0; pass < 2; pass++) {
+        nodes = 0;
+        transpositions = 0;
+        Arrays.fill(table, 0);
+        long start = System.nanoTime();
+        search(board, depth, useTable);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (pass == 1) {
+          System.out.printf("Depth %d%s: %,d nodes, %,.0f nodes/s%n", depth,
+              useTable ? " with transpositions (" + transpositions + " cut)" : "", nodes, nodes / seconds);
+        }
+      }
+    }
+  }
+
+  /**
+   * Visits every line of play up to the given depth.
+   */
+  private static void search(Bitboard board, int depth, boolean useTable) {
+    nodes++;
+    if (depth == 0 || !board.alive) {
+      return;
+    }
+    if (useTable) {
+      long key = board.hash ^ depth;
+      int slot = (int) (key >>> (64 - TABLE_BITS));
+      if (table[slot] == key) {
+        transpositions++;
+        return;
+      }
+      table[slot] = key;
+    }
+    for (int dir = 0; dir < 4; dir++) {
+      if ((dir ^ board.direction) == 1) {
+        continue;
+      }
+      board.make(dir);
+      search(board, depth - 1, useTable);
+      board.unmake();
+    }
+  }
+
+  /**
+   * Plays random moves on both representations under the given rules,
+   * comparing them after every tick and checking that unmaking restores the
+   * board and its hash.
+   */
+  private static boolean matchesModel(RuleSet rules, int ticks) {
+    Random random = new Random(11);
+    SnakeModel model = new SnakeModel();
+    model.rules = rules;
+    model.reset(5);
+    Bitboard board = new Bitboard();
+    board.load(model);
+    Bitboard copy = new Bitboard();
+
+    for (int tick = 0; tick < ticks; tick++) {
+      int dir = random.nextInt(4);
+      copy.copyFrom(board);
+      board.make(dir);
+      board.unmake();
+      if (board.hash != copy.hash || board.headCell() != copy.headCell() || board.apple != copy.apple) {
+        return false;
+      }
+
+      model.turn(dir);
+      boolean died = (model.step() & SnakeModel.DIED) != 0;
+      board.make(dir);
+      if (died != !board.alive) {
+        return false;
+      }
+      if (died) {
+        model.reset(tick);
+        board.load(model);
+        continue;
+      }
+      if (board.headCell() != SnakeModel.cellOf(model.x[0], model.y[0])
+          || board.apple != SnakeModel.cellOf(model.appleX, model.appleY)
+          || board.length != model.bodyParts || board.hash != board.computeHash()) {
+        return false;
+      }
+      if (board.depth() == Bitboard.MAX_DEPTH) {
+        board.load(model);
+      }
+    }
+    return true;
+  }
+}
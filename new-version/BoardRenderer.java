@@ -0,0 +1,28 @@
+import java.awt.Graphics2D;
+
+/**
+ * BoardRenderer paints the playing field: background, apple, snake and
+ * particle effects. The panel draws the score and overlays on top of it.
+ */
+public interface BoardRenderer {
+
+  /**
+   * Paints the board for the given game state.
+   *
+   * @param g2d           Graphics to paint into, starting at the origin
+   * @param model         Game state to show
+   * @param tongueVisible Whether the snake is about to eat
+   * @param particles     Effects to paint over the board
+   */
+  void render(Graphics2D g2d, SnakeModel model, boolean tongueVisible, ParticleSystem particles);
+
+  /**
+   * Creates the renderer selected with -Dsnake.renderer=java2d|software.
+   */
+  static BoardRenderer create(int width, int height, int unit) {
+    if ("software".equals(System.getProperty("snake.renderer"))) {
+      return new SoftwareRenderer(width, height, unit);
+    }
+    return new Java2DRenderer(width, height, unit);
+  }
+}
@@ -0,0 +1,144 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import javax.swing.JComponent;
+import javax.swing.JWindow;
+import javax.swing.SwingUtilities;
+
+/**
+ * Boot brings the game up behind a splash screen. The renderer's caches, the
+ * overlay fonts and the audio system are warmed on background threads while
+ * the splash is shown; the game window opens as soon as everything needed for
+ * the first frame is ready, and audio may finish loading after that. The time
+ * to the first game frame is printed, measured both from process start and
+ * from main().
+ *
+ * With -Dsnake.exitAfterFirstFrame=true the game exits once warm-up and the
+ * first frame are done, which makes a training run for a class data sharing
+ * archive.
+ */
+public class Boot {
+
+  private static long mainStarted;
+  private static boolean firstFrameShown;
+  private static CompletableFuture<Void> audio;
+
+  // Only touched on the event dispatch thread
+  private static JWindow splash;
+
+  /**
+   * Shows the splash, warms up in the background and opens the game.
+   */
+  static void launch() {
+    mainStarted = System.nanoTime();
+
+    SwingUtilities.invokeLater(() -> {
+      splash = new JWindow();
+      splash.add(new SplashView());
+      splash.pack();
+      splash.setLocationRelativeTo(null);
+      splash.setVisible(true);
+    });
+
+    SoundManager sounds = new SoundManager();
+    audio = CompletableFuture.runAsync(sounds::preload);
+    CompletableFuture<Void> fonts = CompletableFuture.runAsync(GamePanel::warmFonts);
+    CompletableFuture<BoardRenderer> renderer = CompletableFuture.supplyAsync(Boot::warmRenderer);
+
+    renderer.thenCombine(fonts, (board, ignored) -> board).thenAccept(board ->
+        SwingUtilities.invokeLater(() -> {
+          try {
+            new GameFrame(new GamePanel(board, sounds));
+            splash.dispose();
+          } catch (RuntimeException e) {
+            splash.dispose();
+            fail(e);
+          }
+        })).exceptionally(e -> {
+          fail(e);
+          return null;
+        });
+  }
+
+  /**
+   * Gives up on a launch that failed, rather than leaving the splash up.
+   */
+  private static void fail(Throwable e) {
+    e.printStackTrace();
+    System.exit(1);
+  }
+
+  /**
+   * Called after every frame the game paints; reports the first one.
+   */
+  static void frameShown() {
+    if (firstFrameShown || mainStarted == 0) {
+      return;
+    }
+    firstFrameShown = true;
+    long sinceMain = (System.nanoTime() - mainStarted) / 1_000_000;
+    String sinceStart = ProcessHandle.current().info().startInstant()
+        .map(start -> Duration.between(start, Instant.now()).toMillis() + " ms after launch, ")
+        .orElse("");
+    System.out.println("First frame " + sinceStart + sinceMain + " ms after main");
+
+    if (Boolean.getBoolean("snake.exitAfterFirstFrame")) {
+      audio.thenRun(() -> System.exit(0));
+    }
+  }
+
+  /**
+   * Creates the renderer and paints one frame off-screen, which fills its
+   * caches and gets the painting code compiled before the window opens.
+   */
+  private static BoardRenderer warmRenderer() {
+    BoardRenderer renderer = BoardRenderer.create(GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT,
+        GamePanel.UNIT_SIZE);
+    SnakeModel model = new SnakeModel();
+    model.reset(0);
+    ParticleSystem particles = new ParticleSystem(64, GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT, 0);
+    particles.emitSparkles(20);
+    particles.emitBurst(100, 100, 20, ParticleSystem.RED);
+
+    BufferedImage scratch = new BufferedImage(GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT,
+        BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2d = scratch.createGraphics();
+    renderer.render(g2d, model, true, particles);
+    g2d.dispose();
+    return renderer;
+  }
+
+  /**
+   * Content of the splash window.
+   */
+  private static class SplashView extends JComponent {
+    private static final long serialVersionUID = 1L;
+
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 36);
+
+    SplashView() {
+      setPreferredSize(new Dimension(320, 120));
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+      Graphics2D g2d = (Graphics2D) g;
+      g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+      g2d.setColor(new Color(48, 25, 52));
+      g2d.fillRect(0, 0, getWidth(), getHeight());
+      g2d.setColor(new Color(0, 200, 100));
+      g2d.setFont(TITLE_FONT);
+      g2d.drawString("Snake", 100, 65);
+      g2d.setColor(new Color(255, 255, 255, 150));
+      g2d.setFont(GamePanel.STATUS_FONT);
+      g2d.drawString("Loading...", 132, 95);
+    }
+  }
+}
@@ -0,0 +1,179 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * EventLog records what happens in each game as fixed-size binary records in
+ * a memory-mapped ring file, for later analysis with EventLogReader. Writing
+ * a record is a handful of stores into the mapping: nothing is allocated,
+ * nothing is locked and no system call is made, so it can be called on every
+ * tick. The operating system writes the pages back in its own time, and the
+ * oldest records are overwritten once the ring is full.
+ *
+ * The file is a 32-byte header followed by CAPACITY records:
+ *
+ * <pre>
+ * header: magic int, record bytes int, capacity int, reserved int,
+ *         next sequence long, last game int, reserved int
+ * record: sequence long, time millis long, game int, tick int,
+ *         type byte, detail byte, length short, head cell short, score short
+ * </pre>
+ *
+ * A record belongs to the ring slot sequence % CAPACITY, and its sequence is
+ * written last, so a reader can tell a complete record from a stale one.
+ * Not thread-safe; the game writes from the event dispatch thread only.
+ */
+public class EventLog {
+
+  static final int MAGIC = 0x534E4556; // "SNEV"
+  static final int HEADER_BYTES = 32;
+  static final int RECORD_BYTES = 32;
+  static final int CAPACITY = 1 << 16;
+
+  // Header offsets
+  static final int NEXT_SEQUENCE = 16;
+  static final int LAST_GAME = 24;
+
+  // Record offsets
+  static final int SEQUENCE = 0;
+  static final int TIME = 8;
+  static final int GAME = 16;
+  static final int TICK = 20;
+  static final int TYPE = 24;
+  static final int DETAIL = 25;
+  static final int LENGTH = 26;
+  static final int HEAD = 28;
+  static final int SCORE = 30;
+
+  // Record types
+  static final byte START = 0; // detail: 1 if resumed from a save
+  static final byte STEP = 1;
+  static final byte TURN = 2; // detail: new direction, plus AUTOPILOT
+  static final byte EAT = 3;
+  static final byte DEATH = 4; // detail: SELF, WALL or OBSTACLE
+  static final byte PAUSE = 5; // detail: 1 when paused, 0 when resumed
+  static final byte END = 6; // game abandoned for a quick-load before it was over
+
+  static final int AUTOPILOT = 0x10;
+
+  static final int SELF = 0;
+  static final int WALL = 1;
+  static final int OBSTACLE = 2;
+
+  private final MappedByteBuffer buffer;
+  private long sequence;
+  private int game;
+
+  private EventLog(MappedByteBuffer buffer) {
+    this.buffer = buffer;
+    this.sequence = buffer.getLong(NEXT_SEQUENCE);
+    this.game = buffer.getInt(LAST_GAME);
+  }
+
+  /**
+   * Maps the log file, continuing after its last record. A missing file, or
+   * one written with another layout, is replaced by an empty log, and the
+   * file is cut to the log's size whatever was there before.
+   */
+  static EventLog open(Path path) throws IOException {
+    long size = HEADER_BYTES + (long) CAPACITY * RECORD_BYTES;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      boolean valid = channel.size() == size;
+      channel.truncate(size);
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+      if (!valid || buffer.getInt(0) != MAGIC || buffer.getInt(4) != RECORD_BYTES
+          || buffer.getInt(8) != CAPACITY) {
+        for (int i = 0; i < HEADER_BYTES; i += 8) {
+          buffer.putLong(i, 0);
+        }
+        // Sequence numbers start at 1, so zeroed or stale slots never match
+        for (int slot = 0; slot < CAPACITY; slot++) {
+          buffer.putLong(HEADER_BYTES + slot * RECORD_BYTES + SEQUENCE, 0);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, RECORD_BYTES);
+        buffer.putInt(8, CAPACITY);
+        buffer.putLong(NEXT_SEQUENCE, 1);
+      }
+      return new EventLog(buffer);
+    }
+  }
+
+  /**
+   * Starts a new game, or resumes a saved one, under the next game number.
+   */
+  public void gameStarted(SnakeModel model, boolean resumed) {
+    game++;
+    buffer.putInt(LAST_GAME, game);
+    write(START, resumed ? 1 : 0, model);
+  }
+
+  public void stepped(SnakeModel model) {
+    write(STEP, model.direction, model);
+  }
+
+  public void turned(SnakeModel model, boolean byAutopilot) {
+    write(TURN, model.direction | (byAutopilot ? AUTOPILOT : 0), model);
+  }
+
+  public void ate(SnakeModel model) {
+    write(EAT, 0, model);
+  }
+
+  public void died(SnakeModel model) {
+    write(DEATH, causeOfDeath(model), model);
+  }
+
+  public void paused(SnakeModel model, boolean paused) {
+    write(PAUSE, paused ? 1 : 0, model);
+  }
+
+  /**
+   * Ends a game that is being replaced before it was over.
+   */
+  public void ended(SnakeModel model) {
+    write(END, 0, model);
+  }
+
+  /**
+   * Forces the records written so far out to the file.
+   */
+  public void flush() {
+    buffer.force();
+  }
+
+  private void write(byte type, int detail, SnakeModel model) {
+    int record = HEADER_BYTES + (int) (sequence % CAPACITY) * RECORD_BYTES;
+    buffer.putLong(record + TIME, System.currentTimeMillis());
+    buffer.putInt(record + GAME, game);
+    buffer.putInt(record + TICK, model.tick);
+    buffer.put(record + TYPE, type);
+    buffer.put(record + DETAIL, (byte) detail);
+    buffer.putShort(record + LENGTH, (short) model.bodyParts);
+    buffer.putShort(record + HEAD, (short) SnakeModel.cellOf(model.x[0], model.y[0]));
+    buffer.putShort(record + SCORE, (short) model.appleEaten);
+    buffer.putLong(record + SEQUENCE, sequence);
+    sequence++;
+    buffer.putLong(NEXT_SEQUENCE, sequence);
+  }
+
+  /**
+   * A dead snake's head is on an obstacle, on its own body, or, having run
+   * into a wall, on neither.
+   */
+  private static int causeOfDeath(SnakeModel model) {
+    int head = SnakeModel.cellOf(model.x[0], model.y[0]);
+    if (model.rules.isObstacle(head)) {
+      return OBSTACLE;
+    }
+    for (int i = 1; i < model.bodyParts; i++) {
+      if (SnakeModel.cellOf(model.x[i], model.y[i]) == head) {
+        return SELF;
+      }
+    }
+    return WALL;
+  }
+}
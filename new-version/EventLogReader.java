@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * EventLogReader summarizes an event log written by the game: how many games
+ * were played, how long they lasted, what the snakes died of and where, and
+ * how often players turned and paused. Only games whose start is still in the
+ * ring count towards durations.
+ *
+ * Usage: java EventLogReader [file]
+ */
+public class EventLogReader {
+
+  private static final String[] DIRECTIONS = { "up", "down", "left", "right" };
+  private static final String[] CAUSES = { "self", "wall", "obstacle" };
+
+  public static void main(String[] args) throws IOException {
+    Path path = Paths.get(args.length > 0 ? args[0] : "events.dat");
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+    if (buffer.limit() != EventLog.HEADER_BYTES + EventLog.CAPACITY * EventLog.RECORD_BYTES
+        || buffer.getInt(0) != EventLog.MAGIC || buffer.getInt(4) != EventLog.RECORD_BYTES) {
+      throw new IOException("Not an event log: " + path);
+    }
+
+    long next = buffer.getLong(EventLog.NEXT_SEQUENCE);
+    long first = Math.max(1, next - EventLog.CAPACITY);
+
+    int records = 0;
+    int stale = 0;
+    int steps = 0;
+    int apples = 0;
+    int pauses = 0;
+    int resumed = 0;
+    int[] turns = new int[DIRECTIONS.length];
+    int autopilotTurns = 0;
+    int[] causes = new int[CAUSES.length];
+    int[] deathCells = new int[GamePanel.GAME_UNITS];
+    long pausedMillis = 0;
+    long pausedSince = -1;
+
+    // Start time and tick of each game seen starting
+    Map<Integer, long[]> starts = new HashMap<>();
+    int games = 0;
+    int finished = 0;
+    int abandoned = 0;
+    int timed = 0;
+    long totalTicks = 0;
+    long totalMillis = 0;
+    long totalScore = 0;
+    long totalLength = 0;
+    int bestScore = 0;
+    long firstTime = 0;
+    long lastTime = 0;
+
+    for (long sequence = first; sequence < next; sequence++) {
+      int record = EventLog.HEADER_BYTES + (int) (sequence % EventLog.CAPACITY) * EventLog.RECORD_BYTES;
+      if (buffer.getLong(record + EventLog.SEQUENCE) != sequence) {
+        stale++;
+        continue;
+      }
+      records++;
+      long time = buffer.getLong(record + EventLog.TIME);
+      int game = buffer.getInt(record + EventLog.GAME);
+      int tick = buffer.getInt(record + EventLog.TICK);
+      int detail = buffer.get(record + EventLog.DETAIL);
+      int score = buffer.getShort(record + EventLog.SCORE);
+      if (firstTime == 0) {
+        firstTime = time;
+      }
+      lastTime = time;
+
+      switch (buffer.get(record + EventLog.TYPE)) {
+        case EventLog.START -> {
+          games++;
+          resumed += detail;
+          starts.put(game, new long[] { time, tick });
+          pausedSince = -1;
+        }
+        case EventLog.STEP -> steps++;
+        case EventLog.TURN -> {
+          turns[detail & 3]++;
+          if ((detail & EventLog.AUTOPILOT) != 0) {
+            autopilotTurns++;
+          }
+        }
+        case EventLog.EAT -> apples++;
+        case EventLog.DEATH -> {
+          finished++;
+          causes[detail]++;
+          deathCells[buffer.getShort(record + EventLog.HEAD)]++;
+          totalScore += score;
+          totalLength += buffer.getShort(record + EventLog.LENGTH);
+          bestScore = Math.max(bestScore, score);
+          long[] start = starts.remove(game);
+          if (start != null) {
+            timed++;
+            totalMillis += time - start[0];
+            totalTicks += tick - start[1];
+          }
+        }
+        case EventLog.END -> {
+          abandoned++;
+          starts.remove(game);
+        }
+        case EventLog.PAUSE -> {
+          if (detail == 1) {
+            pauses++;
+            pausedSince = time;
+          } else if (pausedSince >= 0) {
+            pausedMillis += time - pausedSince;
+            pausedSince = -1;
+          }
+        }
+      }
+    }
+
+    int totalTurns = turns[0] + turns[1] + turns[2] + turns[3];
+    System.out.printf("%,d records over %.1f min (%,d overwritten, %,d incomplete)%n",
+        records, (lastTime - firstTime) / 60_000.0, first - 1, stale);
+    System.out.printf("Games: %,d started (%,d resumed from a save), %,d finished, %,d abandoned%n",
+        games, resumed, finished, abandoned);
+    if (finished > 0) {
+      System.out.printf("Average score %.1f (best %d), average length %.1f%n",
+          (double) totalScore / finished, bestScore, (double) totalLength / finished);
+    }
+    if (timed > 0) {
+      System.out.printf("Average game: %.0f ticks, %.1f s%n",
+          (double) totalTicks / timed, totalMillis / 1000.0 / timed);
+    }
+    System.out.printf("Ticks: %,d, apples: %,d (one every %.1f ticks)%n",
+        steps, apples, apples == 0 ? 0.0 : (double) steps / apples);
+    System.out.printf("Turns: %,d (%s %d, %s %d, %s %d, %s %d), %,d by the autopilot%n",
+        totalTurns, DIRECTIONS[0], turns[0], DIRECTIONS[1], turns[1], DIRECTIONS[2], turns[2],
+        DIRECTIONS[3], turns[3], autopilotTurns);
+    System.out.printf("Pauses: %,d, %.1f s paused%n", pauses, pausedMillis / 1000.0);
+
+    StringBuilder deaths = new StringBuilder("Deaths:");
+    for (int cause = 0; cause < CAUSES.length; cause++) {
+      deaths.append(' ').append(CAUSES[cause]).append(' ').append(causes[cause]);
+    }
+    System.out.println(deaths);
+    printDeadliestCells(deathCells, 5);
+  }
+
+  private static void printDeadliestCells(int[] deathCells, int count) {
+    StringBuilder line = new StringBuilder("Deadliest cells (column, row):");
+    int[] cells = deathCells.clone();
+    for (int i = 0; i < count; i++) {
+      int worst = 0;
+      for (int cell = 1; cell < cells.length; cell++) {
+        if (cells[cell] > cells[worst]) {
+          worst = cell;
+        }
+      }
+      if (cells[worst] == 0) {
+        break;
+      }
+      line.append(String.format(" (%d, %d) x%d", worst % SnakeModel.COLUMNS, worst / SnakeModel.COLUMNS,
+          cells[worst]));
+      cells[worst] = 0;
+    }
+    System.out.println(line);
+  }
+}
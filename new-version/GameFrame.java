@@ -1,3 +1,5 @@
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import javax.swing.JFrame;
 
 /**
@@ -6,16 +8,21 @@ import javax.swing.JFrame;
 public class GameFrame extends JFrame {
 
   /**
-   * Constructs the game frame, setting up the main window properties.
+   * Constructs the game frame around a panel that is already set up.
    */
-  GameFrame() {
-
-    // Create a new instance of GamePanel
-    GamePanel panel = new GamePanel();
+  GameFrame(GamePanel panel) {
 
     // Add the panel to the frame
     this.add(panel);
 
+    // Save an unfinished game when the window is closed
+    this.addWindowListener(new WindowAdapter() {
+      @Override
+      public void windowClosing(WindowEvent e) {
+        panel.autosave();
+      }
+    });
+
     // Set the default close operation for the frame
     this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
 
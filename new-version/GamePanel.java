@@ -1,23 +1,18 @@
-import java.awt.AlphaComposite;
-import java.awt.BasicStroke;
 import java.awt.Color;
-import java.awt.Composite;
 import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.FontMetrics;
 import java.awt.GradientPaint;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
-import java.awt.RadialGradientPaint;
 import java.awt.RenderingHints;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
-import java.awt.geom.Ellipse2D;
-import java.awt.geom.RoundRectangle2D;
-import java.util.ArrayList;
-import java.util.List;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Random;
 import javax.swing.JPanel;
 import javax.swing.Timer;
@@ -35,30 +30,49 @@ public class GamePanel extends JPanel implements ActionListener {
   static final int UNIT_SIZE = 25;
   static final int GAME_UNITS = (SCREEN_WIDTH * SCREEN_HEIGHT) / (UNIT_SIZE * UNIT_SIZE);
   static final int DELAY = 100;
-
-  // Snake properties
-  final int x[] = new int[GAME_UNITS];
-  final int y[] = new int[GAME_UNITS];
-  int bodyParts = 6;
-
-  // Apple properties
-  int appleEaten;
-  int appleX;
-  int appleY;
+  static final int PARTICLE_CAPACITY = 1 << 15;
+
+  // Fonts of the overlays, created once and warmed up by warmFonts()
+  static final Font SCORE_FONT = new Font("Arial", Font.BOLD, 40);
+  static final Font STATUS_FONT = new Font("Arial", Font.PLAIN, 12);
+  static final Font PAUSE_FONT = new Font("Arial", Font.BOLD, 50);
+  static final Font GAME_OVER_FONT = new Font("Arial", Font.BOLD, 70);
+  static final Font RESTART_FONT = new Font("Arial", Font.BOLD, 25);
+
+  // Paints of the overlays, shared by every frame
+  private static final GradientPaint SCORE_PANEL_PAINT = new GradientPaint(
+      SCREEN_WIDTH - 160, 0, new Color(0, 0, 0, 180),
+      SCREEN_WIDTH - 30, 60, new Color(20, 20, 20, 180));
+  private static final Color SCORE_SHADOW = new Color(255, 255, 255, 50);
+  private static final Color DIM_WHITE = new Color(255, 255, 255, 150);
+  private static final Color PAUSE_OVERLAY = new Color(0, 0, 0, 150);
+  private static final Color GAME_OVER_OVERLAY = new Color(0, 0, 0, 200);
+  private static final Color GAME_OVER_RED = new Color(255, 50, 50);
+  private static final Color[] GAME_OVER_GLOW = glow(200, 50, 50, 5);
+  private static final Color[] SCORE_GLOW = glow(200, 200, 200, 3);
+
+  // Apples to eat before moving on to the next level of a level pack
+  static final int APPLES_PER_LEVEL = 10;
+
+  // Share of each tick, in percent, the autopilot may spend searching
+  static final int AUTOPILOT_SHARE = 70;
+
+  // Name scores are submitted under when -Dsnake.leaderboard is set
+  static final String PLAYER = System.getProperty("snake.player", System.getProperty("user.name"));
+
+  // Snake and apple state, stepped by the game rules
+  final SnakeModel model = new SnakeModel();
+
+  // Rule variant played, selected with -Dsnake.rules
+  private final RuleSet rules = RuleSet.selected();
+
+  // Levels played in turn when snake.levels names a level pack
+  private LevelPack levels;
   boolean running = false;
 
   Timer timer;
   Random random;
 
-  // Direction constants
-  private static final int UP = 0;
-  private static final int DOWN = 1;
-  private static final int LEFT = 2;
-  private static final int RIGHT = 3;
-
-  // Current direction of the snake
-  private int direction = RIGHT;
-
   // Game state management
   enum GameState {
     PLAYING,
@@ -71,46 +85,94 @@ public class GamePanel extends JPanel implements ActionListener {
   // Flag for tongue visibility
   private boolean tongueVisible = false;
 
-  // Class representing a star for Game Over screen
-  class Star {
-    int x, y, speed, size;
-    Color color;
-
-    Star(int x, int y, int speed, int size, Color color) {
-      this.x = x;
-      this.y = y;
-      this.speed = speed;
-      this.size = size;
-      this.color = color;
-    }
-
-    void move() {
-      x -= speed;
-      if (x < -size) {
-        x = SCREEN_WIDTH;
-        y = random.nextInt(SCREEN_HEIGHT);
-      }
-    }
-  }
-
-  // List to hold stars for Game Over screen
-  List<Star> gameOverStars;
+  // Sparkles, bursts, trail and Game Over stars, advanced on each tick
+  final ParticleSystem particles;
 
   // Sound manager for handling game sounds
   private SoundManager soundManager;
 
+  // Complete ticks handed from the game logic to paintComponent()
+  private final RenderExchange frames = new RenderExchange(PARTICLE_CAPACITY, SCREEN_WIDTH, SCREEN_HEIGHT);
+
+  // Paints the playing field, selected with -Dsnake.renderer
+  private final BoardRenderer renderer;
+
+  // Save slots for resuming and quick-saving games
+  private final SnapshotStore snapshots = new SnapshotStore();
+
+  // Quick-save loaded here first, so the game it replaces can still be logged
+  private final SnakeModel quickload = new SnakeModel();
+
+  // Streams ticks to spectators when snake.spectatorPort is set
+  private SpectatorServer spectators;
+
+  // Tree search that steers the snake while the autopilot is on
+  private MctsController autopilot;
+  private boolean autopilotEnabled = false;
+
+  // Overlay text last painted, kept so unchanged text is not rebuilt every frame
+  private int shownScore = -1;
+  private String shownScoreText;
+  private int shownFinalScore = -1;
+  private String shownFinalScoreText;
+  private double shownNodesPerSecond;
+  private double shownRolloutDepth;
+  private String shownAutopilotText;
+
+  // Binary record of turns, apples, deaths and pauses, read by EventLogReader;
+  // kept only when snake.eventLog names a file
+  private EventLog events;
+
   /**
-   * Initializes the game panel, setting up the game board and input handling.
+   * Initializes the game panel with a renderer and sounds prepared in advance.
    */
-  GamePanel() {
+  GamePanel(BoardRenderer renderer, SoundManager soundManager) {
+    this.renderer = renderer;
+    this.soundManager = soundManager;
     random = new Random();
+    particles = new ParticleSystem(PARTICLE_CAPACITY, SCREEN_WIDTH, SCREEN_HEIGHT, random.nextLong());
     this.setPreferredSize(new Dimension(SCREEN_WIDTH, SCREEN_HEIGHT));
     this.setBackground(Color.black);
     this.setFocusable(true);
     this.addKeyListener(new MyKeyAdapter());
 
-    soundManager = new SoundManager();
+    Integer spectatorPort = Integer.getInteger("snake.spectatorPort");
+    if (spectatorPort != null) {
+      try {
+        spectators = new SpectatorServer(spectatorPort);
+        spectators.start();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+
+    String levelPack = System.getProperty("snake.levels");
+    if (levelPack != null) {
+      try {
+        levels = LevelPack.open(Paths.get(levelPack));
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+
     startGame();
+
+    // Resume the game that was open when the window was last closed
+    GameState saved = snapshots.load(SnapshotStore.AUTOSAVE, model);
+    if (saved != null) {
+      restoreState(saved == GameState.PLAYING ? GameState.PAUSED : saved);
+    }
+
+    // Opened last, so only the game actually played is logged as started
+    String eventLog = System.getProperty("snake.eventLog");
+    if (eventLog != null) {
+      try {
+        events = EventLog.open(Paths.get(eventLog));
+        events.gameStarted(model, saved != null);
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
   }
 
   /**
@@ -121,88 +183,54 @@ public class GamePanel extends JPanel implements ActionListener {
       timer.stop();
     }
 
-    bodyParts = 6;
-    appleEaten = 0;
-    direction = RIGHT;
+    model.rules = levels != null ? levels.level(0) : rules;
+    model.reset(random.nextLong());
     gameState = GameState.PLAYING;
     running = true;
-
-    int startX = SCREEN_WIDTH / 2;
-    int startY = SCREEN_HEIGHT / 2;
-    for (int i = 0; i < bodyParts; i++) {
-      x[i] = startX - UNIT_SIZE * i;
-      y[i] = startY;
+    particles.clear();
+    particles.emitSparkles(20);
+    if (spectators != null) {
+      spectators.publish(model);
     }
+    if (events != null) {
+      events.gameStarted(model, false);
+    }
+    publishFrame();
 
-    newApple();
-    timer = new Timer(DELAY, this);
+    timer = new Timer(model.rules.delay(0), this);
     timer.start();
+    if (autopilotEnabled) {
+      autopilot.startSearch(model, autopilotBudget());
+    }
   }
 
   @Override
   public void paintComponent(Graphics g) {
     super.paintComponent(g);
     draw(g);
+    Boot.frameShown();
   }
 
   /**
    * Draws all game elements on the screen.
    */
   public void draw(Graphics g) {
-    if (gameState == GameState.PLAYING || gameState == GameState.PAUSED) {
+    RenderExchange.RenderState frame = frames.acquire();
+    if (frame.gameState == GameState.PLAYING || frame.gameState == GameState.PAUSED) {
       Graphics2D g2d = (Graphics2D) g;
       g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-      GradientPaint backgroundGradient = new GradientPaint(
-          0, 0, new Color(48, 25, 52),
-          SCREEN_WIDTH, SCREEN_HEIGHT, new Color(95, 41, 99));
-      g2d.setPaint(backgroundGradient);
-      g2d.fillRect(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
-
-      g2d.setStroke(new BasicStroke(1));
-      g2d.setColor(new Color(255, 255, 255, 15));
-      for (int i = 0; i < SCREEN_HEIGHT / UNIT_SIZE; i++) {
-        g2d.drawLine(i * UNIT_SIZE, 0, i * UNIT_SIZE, SCREEN_HEIGHT);
-        g2d.drawLine(0, i * UNIT_SIZE, SCREEN_WIDTH, i * UNIT_SIZE);
-      }
-
-      for (int i = 0; i < 20; i++) {
-        int sparkleX = random.nextInt(SCREEN_WIDTH);
-        int sparkleY = random.nextInt(SCREEN_HEIGHT);
-        g2d.setColor(new Color(255, 255, 255, random.nextInt(100)));
-        g2d.fillOval(sparkleX, sparkleY, 2, 2);
-      }
-
-      RadialGradientPaint appleGlow = new RadialGradientPaint(
-          appleX + UNIT_SIZE / 2, appleY + UNIT_SIZE / 2, UNIT_SIZE,
-          new float[] { 0.0f, 1.0f },
-          new Color[] { new Color(255, 50, 50, 100), new Color(255, 50, 50, 0) });
-      g2d.setPaint(appleGlow);
-      g2d.fillOval(appleX - 5, appleY - 5, UNIT_SIZE + 10, UNIT_SIZE + 10);
+      renderer.render(g2d, frame.model, frame.tongueVisible, frame.particles);
 
-      GradientPaint appleGradient = new GradientPaint(
-          appleX, appleY, new Color(255, 50, 50),
-          appleX + UNIT_SIZE, appleY + UNIT_SIZE, new Color(200, 20, 20));
-      g2d.setPaint(appleGradient);
-      g2d.fillOval(appleX, appleY, UNIT_SIZE, UNIT_SIZE);
-
-      g2d.setColor(new Color(255, 255, 255, 100));
-      g2d.fillOval(appleX + 5, appleY + 5, 4, 4);
-
-      drawSnake(g2d);
-
-      GradientPaint scorePanelGradient = new GradientPaint(
-          SCREEN_WIDTH - 160, 0, new Color(0, 0, 0, 180),
-          SCREEN_WIDTH - 30, 60, new Color(20, 20, 20, 180));
-      g2d.setPaint(scorePanelGradient);
+      g2d.setPaint(SCORE_PANEL_PAINT);
       int scorePanelWidth = 130;
       int scorePanelHeight = 50;
       int scorePanelX = SCREEN_WIDTH - 140;
       int scorePanelY = 12;
       g2d.fillRoundRect(scorePanelX, scorePanelY, scorePanelWidth, scorePanelHeight, 15, 15);
 
-      g2d.setFont(new Font("Arial", Font.BOLD, 40));
-      String scoreText = String.valueOf(appleEaten);
+      g2d.setFont(SCORE_FONT);
+      String scoreText = scoreText(frame.model.appleEaten);
       FontMetrics metrics = getFontMetrics(g2d.getFont());
       int scoreWidth = metrics.stringWidth(scoreText);
       int scoreX = scorePanelX + (scorePanelWidth - scoreWidth) / 2;
@@ -210,15 +238,21 @@ public class GamePanel extends JPanel implements ActionListener {
       int textAscent = metrics.getAscent();
       int textY = scorePanelY + (scorePanelHeight + textAscent) / 2 - 2;
 
-      g2d.setColor(new Color(255, 255, 255, 50));
+      g2d.setColor(SCORE_SHADOW);
       g2d.drawString(scoreText, scoreX, textY);
       g2d.setColor(Color.WHITE);
       g2d.drawString(scoreText, scoreX, textY - 2);
 
-      if (gameState == GameState.PAUSED) {
-        g2d.setColor(new Color(0, 0, 0, 150));
+      if (frame.autopilotEnabled) {
+        g2d.setFont(STATUS_FONT);
+        g2d.setColor(DIM_WHITE);
+        g2d.drawString(autopilotText(frame), 12, 24);
+      }
+
+      if (frame.gameState == GameState.PAUSED) {
+        g2d.setColor(PAUSE_OVERLAY);
         g2d.fillRect(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
-        g2d.setFont(new Font("Arial", Font.BOLD, 50));
+        g2d.setFont(PAUSE_FONT);
         String pauseText = "Paused";
         FontMetrics pauseMetrics = getFontMetrics(g2d.getFont());
         int pauseX = (SCREEN_WIDTH - pauseMetrics.stringWidth(pauseText)) / 2;
@@ -227,147 +261,67 @@ public class GamePanel extends JPanel implements ActionListener {
         g2d.drawString(pauseText, pauseX, pauseY);
       }
 
-    } else if (gameState == GameState.GAME_OVER) {
-      drawGameOver(g);
-    }
-  }
-
-  /**
-   * Creates a new apple at a random position on the board.
-   */
-  public void newApple() {
-    appleX = random.nextInt((int) (SCREEN_WIDTH / UNIT_SIZE)) * UNIT_SIZE;
-    appleY = random.nextInt((int) (SCREEN_HEIGHT / UNIT_SIZE)) * UNIT_SIZE;
-
-    for (int i = 0; i < bodyParts; i++) {
-      if (x[i] == appleX && y[i] == appleY) {
-        newApple();
-        break;
-      }
+    } else if (frame.gameState == GameState.GAME_OVER) {
+      drawGameOver(g, frame);
     }
   }
 
   /**
-   * Moves the snake and handles screen wrapping.
+   * Ends the game after the snake has collided with itself.
    */
-  public void move() {
-    for (int i = bodyParts; i > 0; i--) {
-      x[i] = x[i - 1];
-      y[i] = y[i - 1];
-    }
-
-    switch (direction) {
-      case UP -> y[0] -= UNIT_SIZE;
-      case DOWN -> y[0] += UNIT_SIZE;
-      case LEFT -> x[0] -= UNIT_SIZE;
-      case RIGHT -> x[0] += UNIT_SIZE;
-    }
-
-    if (x[0] < 0) {
-      x[0] = SCREEN_WIDTH - UNIT_SIZE;
-    } else if (x[0] >= SCREEN_WIDTH) {
-      x[0] = 0;
-    }
-
-    if (y[0] < 0) {
-      y[0] = SCREEN_HEIGHT - UNIT_SIZE;
-    } else if (y[0] >= SCREEN_HEIGHT) {
-      y[0] = 0;
-    }
-  }
-
-  /**
-   * Checks if the snake has eaten an apple and updates the game state.
-   */
-  public void checkApple() {
-    if ((x[0] == appleX) && (y[0] == appleY)) {
-      bodyParts++;
-      appleEaten++;
-      newApple();
-      soundManager.playSound("/asset/food.wav");
-    }
-  }
-
-  /**
-   * Checks for collisions with the snake itself.
-   */
-  public void checkCollisions() {
-    for (int i = bodyParts - 1; i > 0; i--) {
-      if ((x[0] == x[i]) && (y[0] == y[i])) {
-        gameState = GameState.GAME_OVER;
-        soundManager.playSound("/asset/gameover.wav");
-        break;
-      }
-    }
-
-    if (gameState == GameState.GAME_OVER) {
-      running = false;
-      timer.stop();
-      initializeGameOverStars();
-      repaint();
-    }
+  private void gameOver() {
+    gameState = GameState.GAME_OVER;
+    soundManager.playSound("/asset/gameover.wav");
+    HighScore.submit(new HighScore.Score(PLAYER, model.appleEaten));
+    running = false;
+    initializeGameOverStars();
+    repaint();
   }
 
   /**
-   * Initializes stars for the Game Over screen.
+   * Replaces the board's particles with stars for the Game Over screen.
    */
   private void initializeGameOverStars() {
-    gameOverStars = new ArrayList<>();
-    int numberOfStars = 50;
-
-    for (int i = 0; i < numberOfStars; i++) {
-      int xPos = random.nextInt(SCREEN_WIDTH);
-      int yPos = random.nextInt(SCREEN_HEIGHT);
-      int speed = random.nextInt(5) + 3;
-      int size = random.nextInt(3) + 2;
-      Color color = new Color(255, 255, 255, random.nextInt(150));
-      gameOverStars.add(new Star(xPos, yPos, speed, size, color));
-    }
+    particles.clear();
+    particles.emitStars(50);
   }
 
   /**
    * Draws the Game Over screen with animations.
    */
-  public void drawGameOver(Graphics g) {
+  public void drawGameOver(Graphics g, RenderExchange.RenderState frame) {
     Graphics2D g2d = (Graphics2D) g;
     g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
 
-    g2d.setColor(new Color(0, 0, 0, 200));
+    g2d.setColor(GAME_OVER_OVERLAY);
     g2d.fillRect(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
 
-    if (gameOverStars != null) {
-      for (Star star : gameOverStars) {
-        g2d.setColor(star.color);
-        g2d.fillOval(star.x, star.y, star.size, star.size);
-      }
-    }
-
-    updateGameOverStars();
+    frame.particles.paint(g2d, 1f);
 
     String gameOverText = "Game Over";
-    g2d.setFont(new Font("Arial", Font.BOLD, 70));
+    g2d.setFont(GAME_OVER_FONT);
     FontMetrics metrics = getFontMetrics(g2d.getFont());
 
     for (int i = 5; i > 0; i--) {
-      g2d.setColor(new Color(200, 50, 50, 50 / i));
+      g2d.setColor(GAME_OVER_GLOW[i]);
       g2d.drawString(gameOverText,
           (SCREEN_WIDTH - metrics.stringWidth(gameOverText)) / 2 + i,
           SCREEN_HEIGHT / 2 + i);
     }
 
-    g2d.setColor(new Color(255, 50, 50));
+    g2d.setColor(GAME_OVER_RED);
     g2d.drawString(gameOverText,
         (SCREEN_WIDTH - metrics.stringWidth(gameOverText)) / 2,
         SCREEN_HEIGHT / 2);
 
-    String scoreText = "Score: " + appleEaten;
-    g2d.setFont(new Font("Arial", Font.BOLD, 40));
+    String scoreText = finalScoreText(frame.model.appleEaten);
+    g2d.setFont(SCORE_FONT);
     metrics = getFontMetrics(g2d.getFont());
 
     int scoreY = SCREEN_HEIGHT / 2 + 50;
 
     for (int i = 3; i > 0; i--) {
-      g2d.setColor(new Color(200, 200, 200, 50 / i));
+      g2d.setColor(SCORE_GLOW[i]);
       g2d.drawString(scoreText,
           (SCREEN_WIDTH - metrics.stringWidth(scoreText)) / 2 + i,
           scoreY + i);
@@ -379,163 +333,64 @@ public class GamePanel extends JPanel implements ActionListener {
         scoreY);
 
     String restartText = "Press Space to Start";
-    g2d.setFont(new Font("Arial", Font.BOLD, 25));
+    g2d.setFont(RESTART_FONT);
     metrics = getFontMetrics(g2d.getFont());
     int restartY = SCREEN_HEIGHT / 2 + 90;
 
-    g2d.setColor(new Color(255, 255, 255, 150));
+    g2d.setColor(DIM_WHITE);
     g2d.drawString(restartText,
         (SCREEN_WIDTH - metrics.stringWidth(restartText)) / 2,
         restartY);
   }
 
-  /**
-   * Updates positions of Game Over stars.
-   */
-  private void updateGameOverStars() {
-    if (gameOverStars != null) {
-      for (Star star : gameOverStars) {
-        star.move();
-      }
-    }
-  }
-
   /**
    * Event listener method called by the Timer.
    */
   @Override
   public void actionPerformed(ActionEvent e) {
     if (gameState == GameState.PLAYING) {
-      tongueVisible = isAboutToEat(x[0], y[0], direction, 2);
-      move();
-      checkApple();
-      checkCollisions();
-    }
-    repaint();
-  }
-
-  /**
-   * Draws the snake and its features.
-   */
-  private void drawSnake(Graphics2D g2d) {
-    for (int i = 0; i < bodyParts; i++) {
-      if (i == 0) {
-        RadialGradientPaint headGlow = new RadialGradientPaint(
-            x[i] + UNIT_SIZE / 2, y[i] + UNIT_SIZE / 2, UNIT_SIZE / 2,
-            new float[] { 0.0f, 1.0f },
-            new Color[] { new Color(100, 255, 100, 150), new Color(100, 255, 100, 0) });
-        g2d.setPaint(headGlow);
-        g2d.fillOval(x[i], y[i], UNIT_SIZE, UNIT_SIZE);
-
-        GradientPaint headGradient = new GradientPaint(
-            x[i], y[i], new Color(0, 200, 100),
-            x[i] + UNIT_SIZE, y[i] + UNIT_SIZE, new Color(0, 150, 80));
-        g2d.setPaint(headGradient);
-        RoundRectangle2D.Double head = new RoundRectangle2D.Double(x[i], y[i], UNIT_SIZE, UNIT_SIZE, 20, 20);
-        g2d.fill(head);
-
-        g2d.setColor(new Color(0, 0, 0, 180));
-        int eyeWidth = UNIT_SIZE / 4;
-        int eyeHeight = UNIT_SIZE / 4;
-        int eyeOffsetX = UNIT_SIZE / 5;
-        int eyeOffsetY = UNIT_SIZE / 4;
-
-        Ellipse2D.Double leftEye = new Ellipse2D.Double(x[i] + eyeOffsetX, y[i] + eyeOffsetY, eyeWidth, eyeHeight);
-        Ellipse2D.Double rightEye = new Ellipse2D.Double(x[i] + UNIT_SIZE - eyeOffsetX - eyeWidth, y[i] + eyeOffsetY,
-            eyeWidth, eyeHeight);
-        g2d.fill(leftEye);
-        g2d.fill(rightEye);
-
-        g2d.setColor(Color.WHITE);
-        int highlightSize = eyeWidth / 3;
-        Ellipse2D.Double leftEyeHighlight = new Ellipse2D.Double(x[i] + eyeOffsetX + highlightSize / 2,
-            y[i] + eyeOffsetY + highlightSize / 2, highlightSize, highlightSize);
-        Ellipse2D.Double rightEyeHighlight = new Ellipse2D.Double(
-            x[i] + UNIT_SIZE - eyeOffsetX - eyeWidth + highlightSize / 2, y[i] + eyeOffsetY + highlightSize / 2,
-            highlightSize, highlightSize);
-        g2d.fill(leftEyeHighlight);
-        g2d.fill(rightEyeHighlight);
-
-        if (tongueVisible) {
-          drawTongue(g2d, x[i], y[i], direction);
-        }
-
-        g2d.setColor(new Color(0, 150, 80, 150));
-        g2d.setStroke(new BasicStroke(2));
-        g2d.draw(head);
-
-      } else {
-        float alpha = 1.0f - ((float) i / bodyParts) * 0.3f;
-        GradientPaint bodyGradient = new GradientPaint(
-            x[i], y[i], new Color(0, 180, 100, (int) (255 * alpha)),
-            x[i] + UNIT_SIZE, y[i] + UNIT_SIZE, new Color(0, 130, 80, (int) (255 * alpha)));
-        g2d.setPaint(bodyGradient);
-
-        RoundRectangle2D.Double bodySegment = new RoundRectangle2D.Double(x[i], y[i], UNIT_SIZE, UNIT_SIZE, 10, 10);
-        g2d.fill(bodySegment);
-
-        Composite originalComposite = g2d.getComposite();
-        g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.1f));
-        g2d.setColor(Color.BLACK);
-        g2d.fill(bodySegment);
-        g2d.setComposite(originalComposite);
+      if (autopilotEnabled) {
+        steer(autopilot.bestMove(), true);
       }
-    }
-  }
-
-  /**
-   * Draws the tongue based on the current direction of movement.
-   */
-  private void drawTongue(Graphics2D g2d, int headX, int headY, int dir) {
-    g2d.setColor(new Color(255, 0, 0, 180));
-    int tongueLength = 15;
-    int tongueWidth = 4;
-
-    switch (dir) {
-      case UP -> g2d.fillRoundRect(headX + UNIT_SIZE / 2 - tongueWidth / 2, headY - tongueLength,
-          tongueWidth, tongueLength, 2, 2);
-      case DOWN -> g2d.fillRoundRect(headX + UNIT_SIZE / 2 - tongueWidth / 2, headY + UNIT_SIZE,
-          tongueWidth, tongueLength, 2, 2);
-      case LEFT -> g2d.fillRoundRect(headX - tongueLength, headY + UNIT_SIZE / 2 - tongueWidth / 2,
-          tongueLength, tongueWidth, 2, 2);
-      case RIGHT -> g2d.fillRoundRect(headX + UNIT_SIZE, headY + UNIT_SIZE / 2 - tongueWidth / 2,
-          tongueLength, tongueWidth, 2, 2);
-    }
-  }
-
-  /**
-   * Determines if the snake is about to eat the apple.
-   */
-  private boolean isAboutToEat(int headX, int headY, int dir, int proximity) {
-    for (int step = 1; step <= proximity; step++) {
-      int nextHeadX = headX;
-      int nextHeadY = headY;
-
-      switch (dir) {
-        case UP -> nextHeadY = headY - UNIT_SIZE * step;
-        case DOWN -> nextHeadY = headY + UNIT_SIZE * step;
-        case LEFT -> nextHeadX = headX - UNIT_SIZE * step;
-        case RIGHT -> nextHeadX = headX + UNIT_SIZE * step;
+      tongueVisible = model.isAboutToEat(2);
+      int stepEvents = model.step();
+      if (events != null) {
+        events.stepped(model);
+        if ((stepEvents & SnakeModel.ATE) != 0) {
+          events.ate(model);
+        }
+        if ((stepEvents & SnakeModel.DIED) != 0) {
+          events.died(model);
+        }
       }
-
-      if (nextHeadX < 0) {
-        nextHeadX = SCREEN_WIDTH - UNIT_SIZE;
-      } else if (nextHeadX >= SCREEN_WIDTH) {
-        nextHeadX = 0;
+      if (spectators != null) {
+        spectators.publish(model);
       }
-
-      if (nextHeadY < 0) {
-        nextHeadY = SCREEN_HEIGHT - UNIT_SIZE;
-      } else if (nextHeadY >= SCREEN_HEIGHT) {
-        nextHeadY = 0;
+      int tail = model.bodyParts - 1;
+      particles.emitTrail(model.x[tail] + UNIT_SIZE / 2, model.y[tail] + UNIT_SIZE / 2, ParticleSystem.GREEN);
+      if ((stepEvents & SnakeModel.ATE) != 0) {
+        particles.emitBurst(model.x[0] + UNIT_SIZE / 2, model.y[0] + UNIT_SIZE / 2, 40, ParticleSystem.RED);
+        soundManager.playSound("/asset/food.wav");
+        if (levels != null && model.appleEaten % APPLES_PER_LEVEL == 0) {
+          model.startLevel(currentLevel());
+          if (spectators != null) {
+            spectators.publish(model);
+          }
+        }
+        timer.setDelay(model.rules.delay(model.appleEaten));
       }
-
-      if ((appleX == nextHeadX) && (appleY == nextHeadY)) {
-        return true;
+      if ((stepEvents & SnakeModel.DIED) != 0) {
+        gameOver();
+      } else if (autopilotEnabled) {
+        // Search the next move while the panel waits for the next tick
+        autopilot.startSearch(model, autopilotBudget());
       }
     }
-
-    return false;
+    if (gameState != GameState.PAUSED) {
+      particles.update(timer.getDelay() / 1000f);
+    }
+    publishFrame();
+    repaint();
   }
 
   /**
@@ -545,34 +400,40 @@ public class GamePanel extends JPanel implements ActionListener {
     @Override
     public void keyPressed(KeyEvent e) {
       switch (e.getKeyCode()) {
-        case KeyEvent.VK_UP -> {
-          if (direction != DOWN) {
-            direction = UP;
-          }
-        }
-        case KeyEvent.VK_DOWN -> {
-          if (direction != UP) {
-            direction = DOWN;
-          }
-        }
-        case KeyEvent.VK_LEFT -> {
-          if (direction != RIGHT) {
-            direction = LEFT;
-          }
-        }
-        case KeyEvent.VK_RIGHT -> {
-          if (direction != LEFT) {
-            direction = RIGHT;
+        case KeyEvent.VK_UP -> steer(SnakeModel.UP, false);
+        case KeyEvent.VK_DOWN -> steer(SnakeModel.DOWN, false);
+        case KeyEvent.VK_LEFT -> steer(SnakeModel.LEFT, false);
+        case KeyEvent.VK_RIGHT -> steer(SnakeModel.RIGHT, false);
+        case KeyEvent.VK_P -> togglePause();
+        case KeyEvent.VK_A -> toggleAutopilot();
+        case KeyEvent.VK_F5 -> snapshots.save(SnapshotStore.QUICKSAVE, model, gameState);
+        case KeyEvent.VK_F9 -> {
+          GameState saved = snapshots.load(SnapshotStore.QUICKSAVE, quickload);
+          if (saved != null) {
+            if (events != null && gameState != GameState.GAME_OVER) {
+              events.ended(model);
+            }
+            model.copyFrom(quickload);
+            restoreState(saved);
           }
         }
-        case KeyEvent.VK_P -> togglePause();
         case KeyEvent.VK_SPACE -> {
           if (gameState == GameState.GAME_OVER) {
             startGame();
           }
         }
       }
-      System.out.println("Direction updated: " + direction);
+    }
+  }
+
+  /**
+   * Turns the snake, logging the turn if the direction changed.
+   */
+  private void steer(int direction, boolean byAutopilot) {
+    int previous = model.direction;
+    model.turn(direction);
+    if (events != null && model.direction != previous) {
+      events.turned(model, byAutopilot);
     }
   }
 
@@ -584,6 +445,164 @@ public class GamePanel extends JPanel implements ActionListener {
       gameState = GameState.PAUSED;
     } else if (gameState == GameState.PAUSED) {
       gameState = GameState.PLAYING;
+    } else {
+      return;
+    }
+    if (events != null) {
+      events.paused(model, gameState == GameState.PAUSED);
+    }
+    publishFrame();
+  }
+
+  /**
+   * Switches the autopilot on or off, creating the search threads on first use.
+   */
+  private void toggleAutopilot() {
+    autopilotEnabled = !autopilotEnabled;
+    if (autopilotEnabled) {
+      if (autopilot == null) {
+        autopilot = new MctsController(Runtime.getRuntime().availableProcessors());
+      }
+      autopilot.startSearch(model, autopilotBudget());
+    } else {
+      autopilot.bestMove();
+    }
+  }
+
+  /**
+   * Level of the level pack reached with the current score; the last one
+   * repeats once the pack is finished.
+   */
+  private RuleSet currentLevel() {
+    return levels.level(Math.min(model.appleEaten / APPLES_PER_LEVEL, levels.size() - 1));
+  }
+
+  /**
+   * Search time for the autopilot, a fixed share of the current tick.
+   */
+  private long autopilotBudget() {
+    return timer.getDelay() * AUTOPILOT_SHARE * 10_000L;
+  }
+
+  /**
+   * Switches to a game state after the model has been loaded from a save.
+   */
+  private void restoreState(GameState state) {
+    gameState = state;
+    if (levels != null && model.rules.sameRules(currentLevel())) {
+      // Share the pack's instance, so the saved level is not decoded twice
+      model.rules = currentLevel();
+    }
+    timer.setDelay(model.rules.delay(model.appleEaten));
+    running = state != GameState.GAME_OVER;
+    if (state == GameState.GAME_OVER) {
+      initializeGameOverStars();
+    } else {
+      particles.clear();
+      particles.emitSparkles(20);
+    }
+    if (spectators != null) {
+      spectators.publish(model);
+    }
+    if (events != null) {
+      events.gameStarted(model, true);
+    }
+    if (autopilotEnabled) {
+      autopilot.startSearch(model, autopilotBudget());
+    }
+    publishFrame();
+    repaint();
+  }
+
+  /**
+   * Loads and rasterizes the overlay fonts off-screen, so the first frame
+   * and the first Game Over screen do not stall on font setup.
+   */
+  static void warmFonts() {
+    BufferedImage scratch = new BufferedImage(SCREEN_WIDTH, 100, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g2d = scratch.createGraphics();
+    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    for (Font font : new Font[] { SCORE_FONT, STATUS_FONT, PAUSE_FONT, GAME_OVER_FONT, RESTART_FONT }) {
+      g2d.setFont(font);
+      g2d.drawString("0123456789 Score: Game Over Paused Press Space to Start Autopilot", 0, 80);
+    }
+    g2d.dispose();
+  }
+
+  /**
+   * Copies everything paintComponent() shows into the next render state and
+   * hands it over, so painting never reads the model mid-tick.
+   */
+  private void publishFrame() {
+    RenderExchange.RenderState frame = frames.back();
+    frame.model.copyFrom(model);
+    frame.particles.copyFrom(particles);
+    frame.tongueVisible = tongueVisible;
+    frame.gameState = gameState;
+    frame.autopilotEnabled = autopilotEnabled;
+    if (autopilotEnabled) {
+      frame.autopilotNodesPerSecond = autopilot.nodesPerSecond();
+      frame.autopilotRolloutDepth = autopilot.averageRolloutDepth();
+    }
+    frames.publish();
+  }
+
+  /**
+   * Score shown while playing, only converted again when it changes.
+   */
+  private String scoreText(int score) {
+    if (score != shownScore) {
+      shownScore = score;
+      shownScoreText = String.valueOf(score);
+    }
+    return shownScoreText;
+  }
+
+  private String finalScoreText(int score) {
+    if (score != shownFinalScore) {
+      shownFinalScore = score;
+      shownFinalScoreText = "Score: " + score;
+    }
+    return shownFinalScoreText;
+  }
+
+  /**
+   * Autopilot status line, formatted again only when the frame's statistics
+   * differ from the last ones shown.
+   */
+  private String autopilotText(RenderExchange.RenderState frame) {
+    if (frame.autopilotNodesPerSecond != shownNodesPerSecond
+        || frame.autopilotRolloutDepth != shownRolloutDepth || shownAutopilotText == null) {
+      shownNodesPerSecond = frame.autopilotNodesPerSecond;
+      shownRolloutDepth = frame.autopilotRolloutDepth;
+      shownAutopilotText = String.format("Autopilot  %.1fM nodes/s  rollout depth %.1f",
+          shownNodesPerSecond / 1e6, shownRolloutDepth);
+    }
+    return shownAutopilotText;
+  }
+
+  /**
+   * Fading copies of a color for text glow, indexed by distance 1 to steps.
+   */
+  private static Color[] glow(int red, int green, int blue, int steps) {
+    Color[] colors = new Color[steps + 1];
+    for (int i = 1; i <= steps; i++) {
+      colors[i] = new Color(red, green, blue, 50 / i);
+    }
+    return colors;
+  }
+
+  /**
+   * Saves an unfinished game so it can be resumed on the next launch.
+   */
+  public void autosave() {
+    if (gameState == GameState.GAME_OVER) {
+      snapshots.delete(SnapshotStore.AUTOSAVE);
+    } else {
+      snapshots.save(SnapshotStore.AUTOSAVE, model, gameState);
+    }
+    if (events != null) {
+      events.flush();
     }
   }
 }
@@ -1,4 +1,11 @@
 import java.io.*;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 
 /**
@@ -7,6 +14,11 @@ import java.util.*;
  */
 public class HighScore {
     private static final String FILE_PATH = "highscores.dat";
+
+    // Shared leaderboard, e.g. http://host:8090/scores; none if unset
+    private static final String LEADERBOARD = System.getProperty("snake.leaderboard");
+    private static HttpClient client;
+
     private List<Score> highScores = new ArrayList<>();
 
     /**
@@ -37,6 +49,47 @@ public class HighScore {
             highScores = highScores.subList(0, 10);
         }
         saveToFile();
+        submit(score);
+    }
+
+    /**
+     * Sends a score to the shared leaderboard, if one is configured with
+     * -Dsnake.leaderboard. Names longer than the server accepts are cut
+     * short. The request is sent in the background and a failure, or a
+     * rejection by the server, is only reported, never thrown.
+     *
+     * @param score The score to be submitted
+     */
+    public static void submit(Score score) {
+        if (LEADERBOARD == null) {
+            return;
+        }
+        String name = score.playerName.length() > LeaderboardServer.MAX_NAME
+                ? score.playerName.substring(0, LeaderboardServer.MAX_NAME) : score.playerName;
+        String form = "name=" + URLEncoder.encode(name, StandardCharsets.UTF_8)
+                + "&score=" + score.score;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(LEADERBOARD))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+        client().sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .thenAccept(response -> {
+                    if (response.statusCode() != 200) {
+                        System.err.println("Leaderboard rejected the score: HTTP " + response.statusCode());
+                    }
+                })
+                .exceptionally(e -> {
+                    System.err.println("Leaderboard submission failed: " + e);
+                    return null;
+                });
+    }
+
+    private static synchronized HttpClient client() {
+        if (client == null) {
+            client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        }
+        return client;
     }
 
     /**
@@ -0,0 +1,212 @@
+import java.awt.AlphaComposite;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RadialGradientPaint;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.RoundRectangle2D;
+
+/**
+ * Java2DRenderer paints the board with antialiased Java2D shapes and
+ * gradients. Its paint methods are also used to pre-render the tiles of
+ * SoftwareRenderer, so both backends draw the same artwork.
+ */
+public class Java2DRenderer implements BoardRenderer {
+
+  private final int width;
+  private final int height;
+  private final int unit;
+
+  /**
+   * Creates a renderer for a board of the given pixel size and cell size.
+   */
+  Java2DRenderer(int width, int height, int unit) {
+    this.width = width;
+    this.height = height;
+    this.unit = unit;
+  }
+
+  @Override
+  public void render(Graphics2D g2d, SnakeModel model, boolean tongueVisible, ParticleSystem particles) {
+    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+    paintBackground(g2d, width, height, unit);
+
+    for (int cell = 0; cell < GamePanel.GAME_UNITS; cell++) {
+      if (model.rules.isObstacle(cell)) {
+        paintObstacle(g2d, scale(SnakeModel.cellX(cell)), scale(SnakeModel.cellY(cell)), unit);
+      }
+    }
+
+    paintApple(g2d, scale(model.appleX), scale(model.appleY), unit);
+
+    for (int i = 0; i < model.bodyParts; i++) {
+      int x = scale(model.x[i]);
+      int y = scale(model.y[i]);
+      if (i == 0) {
+        paintHead(g2d, x, y, unit, tongueVisible ? model.direction : -1);
+      } else {
+        float alpha = 1.0f - ((float) i / model.bodyParts) * 0.3f;
+        paintBody(g2d, x, y, unit, alpha);
+      }
+    }
+
+    particles.paint(g2d, (float) unit / GamePanel.UNIT_SIZE);
+  }
+
+  /**
+   * Converts a model coordinate to a pixel coordinate on this board.
+   */
+  private int scale(int coordinate) {
+    return coordinate / GamePanel.UNIT_SIZE * unit;
+  }
+
+  /**
+   * Paints the background gradient and grid lines.
+   */
+  static void paintBackground(Graphics2D g2d, int width, int height, int unit) {
+    GradientPaint backgroundGradient = new GradientPaint(
+        0, 0, new Color(48, 25, 52),
+        width, height, new Color(95, 41, 99));
+    g2d.setPaint(backgroundGradient);
+    g2d.fillRect(0, 0, width, height);
+
+    g2d.setStroke(new BasicStroke(1));
+    g2d.setColor(new Color(255, 255, 255, 15));
+    for (int i = 0; i < width / unit; i++) {
+      g2d.drawLine(i * unit, 0, i * unit, height);
+    }
+    for (int i = 0; i < height / unit; i++) {
+      g2d.drawLine(0, i * unit, width, i * unit);
+    }
+  }
+
+  /**
+   * Paints one obstacle block.
+   */
+  static void paintObstacle(Graphics2D g2d, int x, int y, int unit) {
+    GradientPaint blockGradient = new GradientPaint(
+        x, y, new Color(120, 110, 140),
+        x + unit, y + unit, new Color(70, 60, 90));
+    g2d.setPaint(blockGradient);
+    g2d.fillRoundRect(x + 1, y + 1, unit - 2, unit - 2, unit / 5, unit / 5);
+
+    g2d.setColor(new Color(255, 255, 255, 40));
+    g2d.setStroke(new BasicStroke(1));
+    g2d.drawRoundRect(x + 1, y + 1, unit - 3, unit - 3, unit / 5, unit / 5);
+  }
+
+  /**
+   * Paints the apple and its glow, which extends a fifth of a cell beyond it.
+   */
+  static void paintApple(Graphics2D g2d, int appleX, int appleY, int unit) {
+    int glow = unit / 5;
+    RadialGradientPaint appleGlow = new RadialGradientPaint(
+        appleX + unit / 2, appleY + unit / 2, unit,
+        new float[] { 0.0f, 1.0f },
+        new Color[] { new Color(255, 50, 50, 100), new Color(255, 50, 50, 0) });
+    g2d.setPaint(appleGlow);
+    g2d.fillOval(appleX - glow, appleY - glow, unit + 2 * glow, unit + 2 * glow);
+
+    GradientPaint appleGradient = new GradientPaint(
+        appleX, appleY, new Color(255, 50, 50),
+        appleX + unit, appleY + unit, new Color(200, 20, 20));
+    g2d.setPaint(appleGradient);
+    g2d.fillOval(appleX, appleY, unit, unit);
+
+    g2d.setColor(new Color(255, 255, 255, 100));
+    g2d.fillOval(appleX + unit / 5, appleY + unit / 5, unit * 4 / 25, unit * 4 / 25);
+  }
+
+  /**
+   * Paints the snake's head with its eyes, and its tongue when tongueDirection
+   * is not -1.
+   */
+  static void paintHead(Graphics2D g2d, int x, int y, int unit, int tongueDirection) {
+    RadialGradientPaint headGlow = new RadialGradientPaint(
+        x + unit / 2, y + unit / 2, unit / 2,
+        new float[] { 0.0f, 1.0f },
+        new Color[] { new Color(100, 255, 100, 150), new Color(100, 255, 100, 0) });
+    g2d.setPaint(headGlow);
+    g2d.fillOval(x, y, unit, unit);
+
+    GradientPaint headGradient = new GradientPaint(
+        x, y, new Color(0, 200, 100),
+        x + unit, y + unit, new Color(0, 150, 80));
+    g2d.setPaint(headGradient);
+    RoundRectangle2D.Double head = new RoundRectangle2D.Double(x, y, unit, unit, unit * 4 / 5, unit * 4 / 5);
+    g2d.fill(head);
+
+    g2d.setColor(new Color(0, 0, 0, 180));
+    int eyeWidth = unit / 4;
+    int eyeHeight = unit / 4;
+    int eyeOffsetX = unit / 5;
+    int eyeOffsetY = unit / 4;
+
+    Ellipse2D.Double leftEye = new Ellipse2D.Double(x + eyeOffsetX, y + eyeOffsetY, eyeWidth, eyeHeight);
+    Ellipse2D.Double rightEye = new Ellipse2D.Double(x + unit - eyeOffsetX - eyeWidth, y + eyeOffsetY,
+        eyeWidth, eyeHeight);
+    g2d.fill(leftEye);
+    g2d.fill(rightEye);
+
+    g2d.setColor(Color.WHITE);
+    int highlightSize = eyeWidth / 3;
+    Ellipse2D.Double leftEyeHighlight = new Ellipse2D.Double(x + eyeOffsetX + highlightSize / 2,
+        y + eyeOffsetY + highlightSize / 2, highlightSize, highlightSize);
+    Ellipse2D.Double rightEyeHighlight = new Ellipse2D.Double(
+        x + unit - eyeOffsetX - eyeWidth + highlightSize / 2, y + eyeOffsetY + highlightSize / 2,
+        highlightSize, highlightSize);
+    g2d.fill(leftEyeHighlight);
+    g2d.fill(rightEyeHighlight);
+
+    if (tongueDirection >= 0) {
+      paintTongue(g2d, x, y, unit, tongueDirection);
+    }
+
+    g2d.setColor(new Color(0, 150, 80, 150));
+    g2d.setStroke(new BasicStroke(2));
+    g2d.draw(head);
+  }
+
+  /**
+   * Paints one body segment at the given opacity.
+   */
+  static void paintBody(Graphics2D g2d, int x, int y, int unit, float alpha) {
+    GradientPaint bodyGradient = new GradientPaint(
+        x, y, new Color(0, 180, 100, (int) (255 * alpha)),
+        x + unit, y + unit, new Color(0, 130, 80, (int) (255 * alpha)));
+    g2d.setPaint(bodyGradient);
+
+    RoundRectangle2D.Double bodySegment = new RoundRectangle2D.Double(x, y, unit, unit, unit * 2 / 5, unit * 2 / 5);
+    g2d.fill(bodySegment);
+
+    Composite originalComposite = g2d.getComposite();
+    g2d.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.1f));
+    g2d.setColor(Color.BLACK);
+    g2d.fill(bodySegment);
+    g2d.setComposite(originalComposite);
+  }
+
+  /**
+   * Paints the tongue sticking out of the head in the direction of movement.
+   */
+  static void paintTongue(Graphics2D g2d, int headX, int headY, int unit, int dir) {
+    g2d.setColor(new Color(255, 0, 0, 180));
+    int tongueLength = unit * 3 / 5;
+    int tongueWidth = unit * 4 / 25;
+
+    switch (dir) {
+      case SnakeModel.UP -> g2d.fillRoundRect(headX + unit / 2 - tongueWidth / 2, headY - tongueLength,
+          tongueWidth, tongueLength, 2, 2);
+      case SnakeModel.DOWN -> g2d.fillRoundRect(headX + unit / 2 - tongueWidth / 2, headY + unit,
+          tongueWidth, tongueLength, 2, 2);
+      case SnakeModel.LEFT -> g2d.fillRoundRect(headX - tongueLength, headY + unit / 2 - tongueWidth / 2,
+          tongueLength, tongueWidth, 2, 2);
+      case SnakeModel.RIGHT -> g2d.fillRoundRect(headX + unit, headY + unit / 2 - tongueWidth / 2,
+          tongueLength, tongueWidth, 2, 2);
+    }
+  }
+}
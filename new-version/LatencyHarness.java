@@ -0,0 +1,154 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * LatencyHarness runs an authoritative server and a predicting client over a
+ * simulated loopback link with injected latency, then reports how often the
+ * client had to roll back, how far it widened its lead and whether it
+ * converged on the server's state.
+ *
+ * Usage: java LatencyHarness [one-way latency ms] [jitter ms] [ticks] [lead ticks]
+ */
+public class LatencyHarness {
+
+  /**
+   * A message in flight on the simulated link.
+   */
+  static class Packet {
+    final long deliverAt;
+    final int inputTick;
+    final int direction;
+    final SnakeModel snapshot;
+    final int lastInputTick;
+
+    Packet(long deliverAt, int inputTick, int direction, SnakeModel snapshot, int lastInputTick) {
+      this.deliverAt = deliverAt;
+      this.inputTick = inputTick;
+      this.direction = direction;
+      this.snapshot = snapshot;
+      this.lastInputTick = lastInputTick;
+    }
+  }
+
+  public static void main(String[] args) {
+    int latency = args.length > 0 ? Integer.parseInt(args[0]) : 150;
+    int jitter = args.length > 1 ? Integer.parseInt(args[1]) : 120;
+    int ticks = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+    // Starting lead of the client. By default it starts with none and widens
+    // its lead each time inputs reach the server late, so every run exercises
+    // reconciliation
+    int lead = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+
+    long seed = 42;
+    Random network = new Random(7);
+
+    SnakeModel server = new SnakeModel();
+    server.reset(seed);
+    PredictedClient client = new PredictedClient(lead);
+    client.start(seed);
+
+    ArrayDeque<Packet> toServer = new ArrayDeque<>();
+    ArrayDeque<Packet> toClient = new ArrayDeque<>();
+    List<Packet> heldInputs = new ArrayList<>();
+    SnakeModel scratch = new SnakeModel();
+    int lastAppliedInput = -1;
+    long lastToServer = 0;
+    long lastToClient = 0;
+
+    for (long now = 0; server.tick < ticks && server.alive; now++) {
+      boolean tickDue = now % GamePanel.DELAY == 0;
+
+      // Client tick: steer towards the apple and predict locally
+      if (tickDue) {
+        int choice = chooseDirection(client.state(), scratch);
+        if (choice != client.state().direction) {
+          client.input(choice);
+        }
+        int inputTick = client.tick();
+        if (inputTick >= 0) {
+          lastToServer = Math.max(lastToServer, now + latency + network.nextInt(jitter + 1));
+          toServer.add(new Packet(lastToServer, inputTick, choice, null, 0));
+        }
+      }
+
+      while (!toServer.isEmpty() && toServer.peek().deliverAt <= now) {
+        heldInputs.add(toServer.poll());
+      }
+      while (!toClient.isEmpty() && toClient.peek().deliverAt <= now) {
+        Packet packet = toClient.poll();
+        client.onSnapshot(packet.snapshot, packet.lastInputTick);
+      }
+
+      if (!tickDue) {
+        continue;
+      }
+
+      // Server tick: apply every input due by now in the order it was sent
+      int next = server.tick + 1;
+      for (int i = 0; i < heldInputs.size(); i++) {
+        Packet input = heldInputs.get(i);
+        if (input.inputTick <= next) {
+          server.turn(input.direction);
+          lastAppliedInput = Math.max(lastAppliedInput, input.inputTick);
+          heldInputs.remove(i--);
+        }
+      }
+      server.step();
+      SnakeModel snapshot = new SnakeModel();
+      snapshot.copyFrom(server);
+      lastToClient = Math.max(lastToClient, now + latency + network.nextInt(jitter + 1));
+      toClient.add(new Packet(lastToClient, 0, 0, snapshot, lastAppliedInput));
+    }
+
+    // Let the client catch up with the last state the server produced
+    while (!toClient.isEmpty()) {
+      Packet packet = toClient.poll();
+      client.onSnapshot(packet.snapshot, packet.lastInputTick);
+    }
+
+    System.out.println("Latency: " + latency + " ms +/- " + jitter + " ms, lead: " + lead + " ticks"
+        + (client.lead() != lead ? ", widened to " + client.lead() : ""));
+    System.out.println("Server ticks: " + server.tick + ", apples: " + server.appleEaten
+        + (server.alive ? "" : " (snake died)"));
+    System.out.println("Snapshots: " + client.snapshotsReceived + ", rollbacks: " + client.rollbacks
+        + ", re-simulated ticks: " + client.resimulatedTicks);
+    if (client.rollbacks > 0) {
+      System.out.printf("Average reconcile: %.1f us%n", client.reconcileNanos / 1000.0 / client.rollbacks);
+    }
+    System.out.println("Converged: " + client.state().sameState(server));
+  }
+
+  /**
+   * Picks a direction towards the apple that does not kill the snake next tick.
+   */
+  private static int chooseDirection(SnakeModel state, SnakeModel scratch) {
+    int[] order = new int[4];
+    int count = 0;
+    if (state.appleX < state.x[0]) {
+      order[count++] = SnakeModel.LEFT;
+    } else if (state.appleX > state.x[0]) {
+      order[count++] = SnakeModel.RIGHT;
+    }
+    if (state.appleY < state.y[0]) {
+      order[count++] = SnakeModel.UP;
+    } else if (state.appleY > state.y[0]) {
+      order[count++] = SnakeModel.DOWN;
+    }
+    order[count++] = state.direction;
+    for (int direction = 0; direction < 4 && count < 4; direction++) {
+      order[count++] = direction;
+    }
+
+    for (int i = 0; i < order.length; i++) {
+      scratch.copyFrom(state);
+      scratch.turn(order[i]);
+      if (scratch.direction == order[i] && (scratch.step() & SnakeModel.DIED) == 0) {
+        return order[i];
+      }
+    }
+    return state.direction;
+  }
+}
@@ -0,0 +1,96 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LeaderboardBench starts a LeaderboardServer on a free port and lets
+ * thousands of concurrent clients hit it. Each client sends its requests one
+ * after another: mostly top-K queries, with submissions and rank lookups
+ * mixed in. Reports the request rate, latency percentiles and how often the
+ * cached top-K response had to be rebuilt.
+ *
+ * Usage: java LeaderboardBench [clients] [requests per client]
+ */
+public class LeaderboardBench {
+
+  public static void main(String[] args) throws IOException {
+    LeaderboardServer.allowIdleConnections();
+    int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    int requests = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+    Path snapshot = Files.createTempFile("leaderboard", ".dat");
+    Files.delete(snapshot);
+    LeaderboardServer server = new LeaderboardServer(0, snapshot);
+    server.start();
+    String base = "http://localhost:" + server.port();
+
+    HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    long[] latencies = new long[clients * requests];
+    AtomicInteger recorded = new AtomicInteger();
+    AtomicLong failures = new AtomicLong();
+
+    long start = System.nanoTime();
+    CompletableFuture<?>[] running = new CompletableFuture<?>[clients];
+    for (int c = 0; c < clients; c++) {
+      SplittableRandom random = new SplittableRandom(c);
+      String name = "player" + c;
+      CompletableFuture<Void> chain = CompletableFuture.completedFuture(null);
+      for (int r = 0; r < requests; r++) {
+        chain = chain.thenCompose(ignored -> {
+          HttpRequest request = nextRequest(base, name, random);
+          long sent = System.nanoTime();
+          return http.sendAsync(request, HttpResponse.BodyHandlers.discarding()).handle((response, e) -> {
+            if (e != null || (response.statusCode() != 200 && response.statusCode() != 404)) {
+              failures.incrementAndGet();
+            }
+            latencies[recorded.getAndIncrement()] = System.nanoTime() - sent;
+            return null;
+          });
+        });
+      }
+      running[c] = chain;
+    }
+    CompletableFuture.allOf(running).join();
+    long elapsed = System.nanoTime() - start;
+
+    server.stop();
+    Files.deleteIfExists(snapshot);
+
+    int count = recorded.get();
+    Arrays.sort(latencies, 0, count);
+    System.out.printf("%,d clients x %d requests: %,.0f requests/s, p50 %.2f ms, p99 %.2f ms, "
+        + "max %.2f ms, %d failed%n",
+        clients, requests, count / (elapsed / 1e9), latencies[count / 2] / 1e6,
+        latencies[(int) (count * 0.99)] / 1e6, latencies[count - 1] / 1e6, failures.get());
+    System.out.printf("%,d submissions, %,d top-K queries served from %,d cached responses%n",
+        server.submissions.get(), server.topQueries.get(), server.topRebuilds.get());
+  }
+
+  /**
+   * 80% top-K queries, 10% submissions and 10% rank lookups; a lookup before
+   * the first submission is answered 404.
+   */
+  private static HttpRequest nextRequest(String base, String name, SplittableRandom random) {
+    int kind = random.nextInt(10);
+    if (kind == 0) {
+      String form = "name=" + name + "&score=" + random.nextInt(LeaderboardServer.MAX_SCORE + 1);
+      return HttpRequest.newBuilder(URI.create(base + "/scores"))
+          .header("Content-Type", "application/x-www-form-urlencoded")
+          .POST(HttpRequest.BodyPublishers.ofString(form))
+          .build();
+    }
+    if (kind == 1) {
+      return HttpRequest.newBuilder(URI.create(base + "/rank?name=" + name)).build();
+    }
+    return HttpRequest.newBuilder(URI.create(base + "/top")).build();
+  }
+}
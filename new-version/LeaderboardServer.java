@@ -0,0 +1,418 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LeaderboardServer shares high scores between several game machines over
+ * HTTP. It keeps each player's best score in memory, ranked, and writes the
+ * whole board to disk periodically with an atomic file replace. The top-K
+ * response is serialized once and served as is until a submission actually
+ * changes the top K, so the most frequent query never touches the rankings.
+ *
+ * <pre>
+ * POST /scores  name=...&amp;score=...   -> {"rank":N}
+ * GET  /top                          -> [{"name":"...","score":N}, ...]
+ * GET  /rank?name=...                -> {"name":"...","score":N,"rank":N}
+ * </pre>
+ *
+ * Requests are handled on virtual threads when the runtime has them (Java
+ * 21+), otherwise on a fixed pool.
+ *
+ * Usage: java LeaderboardServer [port] [snapshot file]
+ */
+public class LeaderboardServer {
+
+  // Number of entries in the cached top response
+  static final int TOP_K = 10;
+
+  // Scores are apples eaten, so they cannot exceed the board size
+  static final int MAX_SCORE = GamePanel.GAME_UNITS;
+
+  // Longest player name accepted
+  static final int MAX_NAME = 32;
+
+  private static final int MAGIC = 0x534E4C42; // "SNLB"
+  private static final int SNAPSHOT_SECONDS = 10;
+
+  /**
+   * A player's best score and when it was first reached.
+   */
+  private static final class Entry {
+    final String name;
+    final int score;
+    final long time;
+
+    Entry(String name, int score, long time) {
+      this.name = name;
+      this.score = score;
+      this.time = time;
+    }
+  }
+
+  // Highest score first, earlier first among equal scores
+  private static final Comparator<Entry> ORDER = Comparator.<Entry>comparingInt(e -> -e.score)
+      .thenComparingLong(e -> e.time)
+      .thenComparing(e -> e.name);
+
+  // Rankings, guarded by this
+  private final Map<String, Entry> best = new HashMap<>();
+  private final TreeSet<Entry> ranking = new TreeSet<>(ORDER);
+
+  // Fenwick tree of player counts per score, for ranks in O(log MAX_SCORE); guarded by this
+  private final int[] counts = new int[MAX_SCORE + 2];
+  private boolean dirty;
+
+  // Serialized top K, replaced whenever the top K changes
+  private volatile byte[] topResponse;
+
+  private final HttpServer server;
+  private final ExecutorService executor;
+  private final ScheduledExecutorService snapshots;
+  private final Path snapshotPath;
+
+  // Statistics
+  final AtomicLong submissions = new AtomicLong();
+  final AtomicLong topQueries = new AtomicLong();
+  final AtomicLong topRebuilds = new AtomicLong();
+
+  /**
+   * Creates a server on the given port (0 for any free port), restoring the
+   * last snapshot if there is one.
+   */
+  LeaderboardServer(int port, Path snapshotPath) throws IOException {
+    this.snapshotPath = snapshotPath;
+    restore();
+    rebuildTop();
+
+    server = HttpServer.create(new InetSocketAddress(port), 4096);
+    server.createContext("/scores", this::handleSubmit);
+    server.createContext("/top", this::handleTop);
+    server.createContext("/rank", this::handleRank);
+    executor = newExecutor();
+    server.setExecutor(executor);
+
+    snapshots = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "leaderboard-snapshot");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public void start() {
+    server.start();
+    snapshots.scheduleWithFixedDelay(this::snapshotQuietly, SNAPSHOT_SECONDS, SNAPSHOT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Stops serving and writes a final snapshot.
+   */
+  public void stop() {
+    server.stop(0);
+    executor.shutdown();
+    snapshots.shutdown();
+    snapshotQuietly();
+  }
+
+  public int port() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Records a score, keeping only each player's best.
+   *
+   * @return The player's rank after the submission, 1 being the best
+   */
+  public synchronized int submit(String name, int score) {
+    submissions.incrementAndGet();
+    Entry previous = best.get(name);
+    if (previous != null && previous.score >= score) {
+      return rankOf(previous.score);
+    }
+
+    Entry entry = new Entry(name, score, System.currentTimeMillis());
+    if (previous != null) {
+      ranking.remove(previous);
+      addCount(previous.score, -1);
+    }
+    best.put(name, entry);
+    ranking.add(entry);
+    addCount(score, 1);
+    dirty = true;
+
+    // Scores only go up, so the top K changes exactly when the entry lands in it
+    if (isInTop(entry)) {
+      rebuildTop();
+    }
+    return rankOf(score);
+  }
+
+  private boolean isInTop(Entry entry) {
+    Iterator<Entry> entries = ranking.iterator();
+    for (int i = 0; i < TOP_K && entries.hasNext(); i++) {
+      if (entries.next() == entry) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Rank of a player's best score, or 0 for an unknown player.
+   */
+  public synchronized int rank(String name) {
+    Entry entry = best.get(name);
+    return entry == null ? 0 : rankOf(entry.score);
+  }
+
+  /**
+   * The cached response listing the top K.
+   */
+  public byte[] top() {
+    topQueries.incrementAndGet();
+    return topResponse;
+  }
+
+  private void handleSubmit(HttpExchange exchange) throws IOException {
+    if (!"POST".equals(exchange.getRequestMethod())) {
+      respond(exchange, 405, "{\"error\":\"POST required\"}".getBytes(StandardCharsets.UTF_8));
+      return;
+    }
+    Map<String, String> form;
+    try (InputStream in = exchange.getRequestBody()) {
+      form = parseForm(new String(in.readNBytes(4096), StandardCharsets.UTF_8));
+    }
+    String name = form.get("name");
+    int score;
+    try {
+      score = Integer.parseInt(form.getOrDefault("score", ""));
+    } catch (NumberFormatException e) {
+      score = -1;
+    }
+    if (name == null || name.isEmpty() || name.length() > MAX_NAME || score < 0 || score > MAX_SCORE) {
+      respond(exchange, 400, "{\"error\":\"name and score required\"}".getBytes(StandardCharsets.UTF_8));
+      return;
+    }
+    respond(exchange, 200, ("{\"rank\":" + submit(name, score) + "}").getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void handleTop(HttpExchange exchange) throws IOException {
+    respond(exchange, 200, top());
+  }
+
+  private void handleRank(HttpExchange exchange) throws IOException {
+    String query = exchange.getRequestURI().getRawQuery();
+    String name = parseForm(query == null ? "" : query).get("name");
+    Entry entry;
+    int rank;
+    synchronized (this) {
+      entry = name == null ? null : best.get(name);
+      rank = entry == null ? 0 : rankOf(entry.score);
+    }
+    if (entry == null) {
+      respond(exchange, 404, "{\"error\":\"unknown player\"}".getBytes(StandardCharsets.UTF_8));
+      return;
+    }
+    StringBuilder json = new StringBuilder("{\"name\":");
+    appendString(json, entry.name);
+    json.append(",\"score\":").append(entry.score).append(",\"rank\":").append(rank).append('}');
+    respond(exchange, 200, json.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", "application/json");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  /**
+   * Serializes the first TOP_K entries into the cached response. Called with
+   * the lock held.
+   */
+  private void rebuildTop() {
+    StringBuilder json = new StringBuilder("[");
+    Iterator<Entry> entries = ranking.iterator();
+    for (int i = 0; i < TOP_K && entries.hasNext(); i++) {
+      Entry entry = entries.next();
+      json.append(i == 0 ? "{\"name\":" : ",{\"name\":");
+      appendString(json, entry.name);
+      json.append(",\"score\":").append(entry.score).append('}');
+    }
+    topResponse = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+    topRebuilds.incrementAndGet();
+  }
+
+  /**
+   * One plus the number of players with a strictly higher score.
+   */
+  private int rankOf(int score) {
+    return 1 + best.size() - countUpTo(score);
+  }
+
+  private void addCount(int score, int delta) {
+    for (int i = score + 1; i < counts.length; i += i & -i) {
+      counts[i] += delta;
+    }
+  }
+
+  private int countUpTo(int score) {
+    int total = 0;
+    for (int i = score + 1; i > 0; i -= i & -i) {
+      total += counts[i];
+    }
+    return total;
+  }
+
+  /**
+   * Writes the rankings to a temporary file and moves it over the snapshot,
+   * so a crash never leaves a partial snapshot behind.
+   */
+  void snapshot() throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    synchronized (this) {
+      if (!dirty) {
+        return;
+      }
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeInt(MAGIC);
+      out.writeInt(ranking.size());
+      for (Entry entry : ranking) {
+        out.writeUTF(entry.name);
+        out.writeShort(entry.score);
+        out.writeLong(entry.time);
+      }
+      dirty = false;
+    }
+
+    Path temp = Paths.get(snapshotPath + ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+    Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private void snapshotQuietly() {
+    try {
+      snapshot();
+    } catch (IOException e) {
+      synchronized (this) {
+        dirty = true;
+      }
+      e.printStackTrace();
+    }
+  }
+
+  private synchronized void restore() throws IOException {
+    if (!Files.exists(snapshotPath)) {
+      return;
+    }
+    try (DataInputStream in = new DataInputStream(Files.newInputStream(snapshotPath))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a leaderboard snapshot: " + snapshotPath);
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        Entry entry = new Entry(in.readUTF(), in.readShort(), in.readLong());
+        if (entry.score < 0 || entry.score > MAX_SCORE || best.containsKey(entry.name)) {
+          // Never written by snapshot(); the rank counts have no slot for it
+          continue;
+        }
+        best.put(entry.name, entry);
+        ranking.add(entry);
+        addCount(entry.score, 1);
+      }
+    }
+  }
+
+  /**
+   * Lets the JDK server keep up to 10,000 idle keep-alive connections instead
+   * of 200, unless -Dsun.net.httpserver.maxIdleConnections is given. Past the
+   * limit it closes connections that clients race to reuse. The setting is
+   * JVM-wide and read when the first server is created, so only the programs
+   * that run a leaderboard call this, first thing in main().
+   */
+  static void allowIdleConnections() {
+    if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+      System.setProperty("sun.net.httpserver.maxIdleConnections", "10000");
+    }
+  }
+
+  /**
+   * Virtual thread per request where available, a fixed pool otherwise.
+   */
+  private static ExecutorService newExecutor() {
+    try {
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newFixedThreadPool(Math.max(16, 4 * Runtime.getRuntime().availableProcessors()));
+    }
+  }
+
+  private static Map<String, String> parseForm(String form) {
+    Map<String, String> values = new HashMap<>();
+    for (String pair : form.split("&")) {
+      int equals = pair.indexOf('=');
+      if (equals > 0) {
+        values.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+            URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+      }
+    }
+    return values;
+  }
+
+  private static void appendString(StringBuilder json, String value) {
+    json.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        json.append('\\').append(c);
+      } else if (c < 0x20) {
+        json.append(String.format("\\u%04x", (int) c));
+      } else {
+        json.append(c);
+      }
+    }
+    json.append('"');
+  }
+
+  public static void main(String[] args) throws IOException {
+    allowIdleConnections();
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : 8090;
+    Path snapshot = Paths.get(args.length > 1 ? args[1] : "leaderboard.dat");
+    LeaderboardServer leaderboard = new LeaderboardServer(port, snapshot);
+    Runtime.getRuntime().addShutdownHook(new Thread(leaderboard::stop));
+    leaderboard.start();
+    System.out.println("Leaderboard listening on port " + leaderboard.port());
+  }
+}
@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+/**
+ * LevelPack reads levels from a compact binary file: a short header followed
+ * by one fixed-size record per level holding its flags, speed-up and the
+ * obstacle bitmap. The file is memory-mapped and a level is only decoded into
+ * a RuleSet the first time it is asked for, and checked then, so opening a
+ * pack of thousands of levels costs no more than opening one.
+ *
+ * Usage: java LevelPack [file] [levels] to generate a pack
+ */
+public class LevelPack {
+
+  private static final int MAGIC = 0x534E4C56; // "SNLV"
+  private static final int HEADER_BYTES = 12;
+  private static final int WORDS = (GamePanel.GAME_UNITS + 63) / 64;
+
+  // Flags, speed-up per apple, minimum delay, reserved, then the bitmap
+  static final int RECORD_BYTES = 4 + WORDS * 8;
+
+  private static final int FLAG_WALLS = 1;
+
+  private final MappedByteBuffer buffer;
+  private final RuleSet[] levels;
+
+  private LevelPack(MappedByteBuffer buffer, int count) {
+    this.buffer = buffer;
+    this.levels = new RuleSet[count];
+  }
+
+  /**
+   * Maps a level pack and checks its header.
+   *
+   * @throws IOException if the file cannot be read or is not a level pack for
+   *                     this board size
+   */
+  static LevelPack open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC
+          || buffer.getShort(4) != SnakeModel.COLUMNS || buffer.getShort(6) != SnakeModel.ROWS) {
+        throw new IOException("Not a level pack: " + path);
+      }
+      int count = buffer.getInt(8);
+      if (count < 1 || (long) count * RECORD_BYTES != buffer.limit() - HEADER_BYTES) {
+        throw new IOException("Truncated level pack: " + path);
+      }
+      return new LevelPack(buffer, count);
+    }
+  }
+
+  /**
+   * Number of levels in the pack.
+   */
+  public int size() {
+    return levels.length;
+  }
+
+  /**
+   * Returns a level, decoding it on first use.
+   *
+   * @throws IllegalArgumentException if the level blocks the starting row or
+   *                                  ticks faster than RuleSet.MIN_DELAY
+   */
+  public RuleSet level(int index) {
+    RuleSet level = levels[index];
+    if (level == null) {
+      int record = HEADER_BYTES + index * RECORD_BYTES;
+      long[] obstacles = new long[WORDS];
+      for (int w = 0; w < WORDS; w++) {
+        obstacles[w] = buffer.getLong(record + 4 + w * 8);
+      }
+      boolean walls = (buffer.get(record) & FLAG_WALLS) != 0;
+      level = new RuleSet("level " + (index + 1), walls, obstacles,
+          buffer.get(record + 1) & 0xFF, buffer.get(record + 2) & 0xFF);
+      levels[index] = level;
+    }
+    return level;
+  }
+
+  /**
+   * Writes levels to a pack file.
+   */
+  static void write(Path path, RuleSet[] levels) throws IOException {
+    ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + levels.length * RECORD_BYTES);
+    out.putInt(MAGIC);
+    out.putShort((short) SnakeModel.COLUMNS);
+    out.putShort((short) SnakeModel.ROWS);
+    out.putInt(levels.length);
+    for (RuleSet level : levels) {
+      out.put((byte) (level.walls ? FLAG_WALLS : 0));
+      out.put((byte) level.speedUpPerApple);
+      out.put((byte) level.minimumDelay);
+      out.put((byte) 0);
+      for (int w = 0; w < WORDS; w++) {
+        long bits = 0;
+        for (int b = 0; b < 64 && w * 64 + b < GamePanel.GAME_UNITS; b++) {
+          if (level.isObstacle(w * 64 + b)) {
+            bits |= 1L << b;
+          }
+        }
+        out.putLong(bits);
+      }
+    }
+    out.flip();
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+    }
+  }
+
+  /**
+   * Builds a level with more and longer bars, a faster speed-up and a lower
+   * speed limit the further into the pack it is. Every fourth level has walls.
+   * The starting row is always left free.
+   */
+  static RuleSet generate(int index) {
+    SplittableRandom random = new SplittableRandom(index * SnakeModel.SEED_INCREMENT);
+    long[] obstacles = new long[WORDS];
+    int startRow = GamePanel.SCREEN_HEIGHT / 2 / GamePanel.UNIT_SIZE;
+    int bars = 2 + Math.min(index / 10, 14);
+    for (int bar = 0; bar < bars; bar++) {
+      boolean horizontal = random.nextBoolean();
+      int length = 3 + random.nextInt(5);
+      int column = random.nextInt(SnakeModel.COLUMNS);
+      int row = random.nextInt(SnakeModel.ROWS);
+      for (int i = 0; i < length; i++) {
+        int c = horizontal ? (column + i) % SnakeModel.COLUMNS : column;
+        int r = horizontal ? row : (row + i) % SnakeModel.ROWS;
+        if (r != startRow) {
+          int cell = r * SnakeModel.COLUMNS + c;
+          obstacles[cell >>> 6] |= 1L << cell;
+        }
+      }
+    }
+    return new RuleSet("level " + (index + 1), index % 4 == 3, obstacles,
+        1 + Math.min(index / 50, 4), Math.max(40, 70 - index / 20));
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path path = Paths.get(args.length > 0 ? args[0] : "levels.dat");
+    int count = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+    RuleSet[] levels = new RuleSet[count];
+    for (int i = 0; i < count; i++) {
+      levels[i] = generate(i);
+    }
+    write(path, levels);
+
+    long start = System.nanoTime();
+    LevelPack pack = open(path);
+    long opened = System.nanoTime();
+    pack.level(count - 1);
+    long decoded = System.nanoTime();
+    System.out.printf("Wrote %d levels (%,d bytes); opened in %.1f us, decoded level %d in %.1f us%n",
+        count, HEADER_BYTES + (long) count * RECORD_BYTES, (opened - start) / 1e3, count,
+        (decoded - opened) / 1e3);
+  }
+}
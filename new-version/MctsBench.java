@@ -0,0 +1,60 @@
+/**
+ * MctsBench lets MctsController play whole games on its own and reports its
+ * search speed, rollout depth and score, together with the worst time spent
+ * waiting for a move once a tick's budget has run out.
+ *
+ * Usage: java MctsBench [games] [budget ms] [threads] [max ticks]
+ */
+public class MctsBench {
+
+  public static void main(String[] args) {
+    int games = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+    long budget = (args.length > 1 ? Long.parseLong(args[1]) : 20) * 1_000_000L;
+    int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+    int maxTicks = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+
+    MctsController controller = new MctsController(threads);
+    SnakeModel model = new SnakeModel();
+
+    for (int game = 0; game < games; game++) {
+      model.reset(game + 1);
+      double nodesPerSecond = 0;
+      double rolloutDepth = 0;
+      long playouts = 0;
+      long worstWait = 0;
+      int ticks = 0;
+
+      while (model.alive && ticks < maxTicks) {
+        controller.startSearch(model, budget);
+        sleepUntil(System.nanoTime() + budget);
+        long start = System.nanoTime();
+        model.turn(controller.bestMove());
+        worstWait = Math.max(worstWait, System.nanoTime() - start);
+        model.step();
+
+        nodesPerSecond += controller.nodesPerSecond();
+        rolloutDepth += controller.averageRolloutDepth();
+        playouts += controller.playouts();
+        ticks++;
+      }
+
+      System.out.printf("Game %d: score %d in %d ticks, %,.0f nodes/s, %,d playouts/tick, "
+          + "rollout depth %.1f, worst wait %.2f ms%n",
+          game + 1, model.appleEaten, ticks, nodesPerSecond / ticks, playouts / ticks,
+          rolloutDepth / ticks, worstWait / 1e6);
+    }
+    controller.shutdown();
+  }
+
+  private static void sleepUntil(long deadline) {
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > 0) {
+      try {
+        Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+}
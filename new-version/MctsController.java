@@ -0,0 +1,369 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MctsController plays the game with Monte Carlo tree search. Each worker
+ * thread grows its own tree from the current position (root parallelism) on
+ * a Bitboard, walking it with make/unmake and finishing every playout with a
+ * short heuristic rollout; the root visit counts of all trees are summed to
+ * pick the move. A search runs in the background against a hard deadline, so
+ * it can use the time between ticks without ever holding up the timer.
+ *
+ * Only the apple on the board is known to the search: every playout draws
+ * later apples from a generator state of its own, so the tree learns what is
+ * good on average rather than where the game's next apples will appear.
+ */
+public class MctsController {
+
+  // Nodes each worker may allocate per search; playouts go on without expanding when full
+  static final int NODE_CAPACITY = 1 << 17;
+
+  // Longest rollout played past the tree
+  static final int ROLLOUT_DEPTH = 60;
+
+  // Deepest selection path through the tree
+  static final int TREE_DEPTH = 200;
+
+  private static final double EXPLORATION = 0.8;
+  private static final double DISCOUNT = 0.97;
+
+  private final Worker[] workers;
+  private final ExecutorService pool;
+
+  private CountDownLatch finished = new CountDownLatch(0);
+  private volatile boolean stop;
+  private volatile long deadline;
+  private long searchStart;
+
+  // Statistics of the last completed search
+  private long lastNodes;
+  private long lastPlayouts;
+  private long lastRolloutPlies;
+  private long lastNanos;
+
+  /**
+   * One search thread with its own tree and board.
+   */
+  private class Worker implements Runnable {
+    final Bitboard board = new Bitboard();
+    final SplittableRandom random;
+
+    // Tree storage: four child slots per expanded node, one per direction
+    final int[] childBase = new int[NODE_CAPACITY];
+    final int[] visits = new int[NODE_CAPACITY];
+    final float[] value = new float[NODE_CAPACITY];
+    int nodeCount;
+
+    final int[] path = new int[TREE_DEPTH + 1];
+    long playouts;
+    long treePlies;
+    long rolloutPlies;
+
+    Worker(long seed) {
+      random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public void run() {
+      nodeCount = 1;
+      childBase[0] = -1;
+      visits[0] = 0;
+      value[0] = 0;
+      playouts = 0;
+      treePlies = 0;
+      rolloutPlies = 0;
+      try {
+        while (!stop && System.nanoTime() < deadline) {
+          playout();
+        }
+      } finally {
+        finished.countDown();
+      }
+    }
+
+    /**
+     * Selects down the tree, expands one node, rolls out and backs up.
+     */
+    private void playout() {
+      int node = 0;
+      int length = 0;
+      path[length++] = node;
+      double reward = 0;
+      int ply = 0;
+      board.seed = random.nextLong();
+
+      while (board.alive && length <= TREE_DEPTH) {
+        if (childBase[node] < 0) {
+          if (nodeCount + 4 > NODE_CAPACITY) {
+            break;
+          }
+          childBase[node] = nodeCount;
+          for (int i = 0; i < 4; i++) {
+            childBase[nodeCount + i] = -1;
+            visits[nodeCount + i] = 0;
+            value[nodeCount + i] = 0;
+          }
+          nodeCount += 4;
+        }
+
+        int dir = select(node);
+        int events = board.make(dir);
+        reward += score(events, ply++);
+        treePlies++;
+        node = childBase[node] + dir;
+        path[length++] = node;
+        if (visits[node] == 0) {
+          break;
+        }
+      }
+
+      if (board.alive) {
+        reward += rollout(ply);
+      }
+
+      for (int i = 0; i < length; i++) {
+        visits[path[i]]++;
+        value[path[i]] += (float) reward;
+      }
+      while (board.depth() > 0) {
+        board.unmake();
+      }
+      playouts++;
+    }
+
+    /**
+     * Picks an unvisited child at random, otherwise the best by UCT.
+     */
+    private int select(int node) {
+      int base = childBase[node];
+      int reverse = board.direction ^ 1;
+      int unvisited = 0;
+      for (int dir = 0; dir < 4; dir++) {
+        if (dir != reverse && visits[base + dir] == 0) {
+          unvisited++;
+        }
+      }
+      if (unvisited > 0) {
+        int pick = random.nextInt(unvisited);
+        for (int dir = 0; dir < 4; dir++) {
+          if (dir != reverse && visits[base + dir] == 0 && pick-- == 0) {
+            return dir;
+          }
+        }
+      }
+
+      double logParent = Math.log(visits[node]);
+      int best = -1;
+      double bestScore = Double.NEGATIVE_INFINITY;
+      for (int dir = 0; dir < 4; dir++) {
+        if (dir == reverse) {
+          continue;
+        }
+        int child = base + dir;
+        double uct = value[child] / visits[child] + EXPLORATION * Math.sqrt(logParent / visits[child]);
+        if (uct > bestScore) {
+          bestScore = uct;
+          best = dir;
+        }
+      }
+      return best;
+    }
+
+    /**
+     * Plays heuristic moves from the current position: mostly towards the
+     * apple, never into an occupied cell when a free one exists.
+     */
+    private double rollout(int ply) {
+      double reward = 0;
+      for (int i = 0; i < ROLLOUT_DEPTH && board.alive; i++) {
+        int events = board.make(rolloutMove());
+        reward += score(events, ply++);
+        rolloutPlies++;
+      }
+      return reward;
+    }
+
+    private int rolloutMove() {
+      int head = board.headCell();
+      int reverse = board.direction ^ 1;
+      int free = 0;
+      int firstFree = board.direction;
+      int towardsApple = -1;
+      int bestDistance = Integer.MAX_VALUE;
+      for (int dir = 0; dir < 4; dir++) {
+        if (dir == reverse) {
+          continue;
+        }
+        int next = Bitboard.neighbour(head, dir);
+        if (board.isOccupied(next) || board.walls && Bitboard.crossesEdge(head, dir)) {
+          continue;
+        }
+        if (free++ == 0) {
+          firstFree = dir;
+        }
+        int distance = distance(next, board.apple);
+        if (distance < bestDistance) {
+          bestDistance = distance;
+          towardsApple = dir;
+        }
+      }
+      if (towardsApple >= 0 && random.nextInt(4) != 0) {
+        return towardsApple;
+      }
+      if (free > 1) {
+        int pick = random.nextInt(free);
+        for (int dir = 0; dir < 4; dir++) {
+          if (dir != reverse && !board.isOccupied(Bitboard.neighbour(head, dir))
+              && !(board.walls && Bitboard.crossesEdge(head, dir)) && pick-- == 0) {
+            return dir;
+          }
+        }
+      }
+      return firstFree;
+    }
+  }
+
+  /**
+   * Creates a controller searching on the given number of threads.
+   */
+  MctsController(int threads) {
+    workers = new Worker[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Worker(0x6D6374L * (i + 1));
+    }
+    pool = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "mcts-worker");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Starts searching the given position in the background, abandoning any
+   * search still running.
+   *
+   * @param budgetNanos Time after which the search stops on its own
+   */
+  public void startSearch(SnakeModel model, long budgetNanos) {
+    stopSearch();
+    for (Worker worker : workers) {
+      worker.board.load(model);
+    }
+    stop = false;
+    searchStart = System.nanoTime();
+    deadline = searchStart + budgetNanos;
+    finished = new CountDownLatch(workers.length);
+    for (Worker worker : workers) {
+      pool.execute(worker);
+    }
+  }
+
+  /**
+   * Stops the current search and returns the most visited first move, or the
+   * current direction if nothing was searched.
+   */
+  public int bestMove() {
+    long end = Math.min(System.nanoTime(), deadline);
+    stopSearch();
+
+    Worker first = workers[0];
+    int best = first.board.direction;
+    long bestVisits = 0;
+    long nodes = 0;
+    long playouts = 0;
+    long plies = 0;
+    for (int dir = 0; dir < 4; dir++) {
+      long total = 0;
+      for (Worker worker : workers) {
+        if (worker.childBase[0] >= 0) {
+          total += worker.visits[worker.childBase[0] + dir];
+        }
+      }
+      if (total > bestVisits) {
+        bestVisits = total;
+        best = dir;
+      }
+    }
+    for (Worker worker : workers) {
+      nodes += worker.treePlies + worker.rolloutPlies;
+      playouts += worker.playouts;
+      plies += worker.rolloutPlies;
+    }
+    lastNodes = nodes;
+    lastPlayouts = playouts;
+    lastRolloutPlies = plies;
+    lastNanos = Math.max(1, end - searchStart);
+    return best;
+  }
+
+  /**
+   * Searches synchronously for at most the given time.
+   */
+  public int chooseMove(SnakeModel model, long budgetNanos) {
+    startSearch(model, budgetNanos);
+    try {
+      finished.await(budgetNanos, TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return bestMove();
+  }
+
+  /**
+   * Moves played per second in the last search, through the tree and in
+   * rollouts.
+   */
+  public double nodesPerSecond() {
+    return lastNodes * 1e9 / lastNanos;
+  }
+
+  /**
+   * Average number of rollout moves per playout in the last search.
+   */
+  public double averageRolloutDepth() {
+    return lastPlayouts == 0 ? 0 : (double) lastRolloutPlies / lastPlayouts;
+  }
+
+  /**
+   * Playouts completed in the last search.
+   */
+  public long playouts() {
+    return lastPlayouts;
+  }
+
+  /**
+   * Stops the worker threads.
+   */
+  public void shutdown() {
+    stopSearch();
+    pool.shutdownNow();
+  }
+
+  private void stopSearch() {
+    stop = true;
+    try {
+      finished.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Reward for the events of one move: discounted apples, a penalty for dying.
+   */
+  private static double score(int events, int ply) {
+    if ((events & SnakeModel.DIED) != 0) {
+      return -1;
+    }
+    return (events & SnakeModel.ATE) != 0 ? Math.pow(DISCOUNT, ply) : 0;
+  }
+
+  private static int distance(int a, int b) {
+    int dx = Math.abs(a % Bitboard.COLUMNS - b % Bitboard.COLUMNS);
+    int dy = Math.abs(a / Bitboard.COLUMNS - b / Bitboard.COLUMNS);
+    return Math.min(dx, Bitboard.COLUMNS - dx) + Math.min(dy, Bitboard.ROWS - dy);
+  }
+}
@@ -0,0 +1,48 @@
+import java.lang.management.ManagementFactory;
+
+/**
+ * ParticleBench measures updating and software-painting a large particle
+ * population at 60 frames per second, and the memory allocated while doing so.
+ *
+ * Usage: java ParticleBench [particles] [frames]
+ */
+public class ParticleBench {
+
+  public static void main(String[] args) {
+    int amount = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+    int frames = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+    int width = GamePanel.SCREEN_WIDTH;
+    int height = GamePanel.SCREEN_HEIGHT;
+
+    ParticleSystem particles = new ParticleSystem(amount, width, height, 1);
+    int[] pixels = new int[width * height];
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    for (int pass = 0; pass < 2; pass++) {
+      particles.clear();
+      particles.emitSparkles(amount / 4);
+      particles.emitStars(amount / 4);
+
+      long allocated = threads.getCurrentThreadAllocatedBytes();
+      long start = System.nanoTime();
+      for (int frame = 0; frame < frames; frame++) {
+        // Keep bursts and trails topped up as they expire
+        while (particles.size() < amount - 40) {
+          particles.emitBurst(frame % width, height / 2f, 40, ParticleSystem.RED);
+        }
+        particles.emitTrail(width / 2f, frame % height, ParticleSystem.GREEN);
+        particles.update(1 / 60f);
+        particles.paint(pixels, width, height, 1f);
+      }
+      long elapsed = System.nanoTime() - start;
+      allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+
+      if (pass == 1) {
+        System.out.printf("Particles: %d, frames: %d%n", particles.size(), frames);
+        System.out.printf("Update + paint: %.3f ms/frame (budget at 60 FPS: 16.7 ms)%n", elapsed / 1e6 / frames);
+        System.out.println("Allocated while running: " + allocated + " bytes");
+      }
+    }
+  }
+}
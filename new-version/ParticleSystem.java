@@ -0,0 +1,293 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.util.SplittableRandom;
+
+/**
+ * ParticleSystem animates background sparkles, game-over stars, apple bursts
+ * and the snake's trail. Particles live in parallel primitive arrays of fixed
+ * capacity and are advanced by the simulation clock, so neither updating nor
+ * painting allocates, and effects use their own random stream rather than the
+ * game's.
+ */
+public class ParticleSystem {
+
+  // Particle kinds
+  static final byte SPARKLE = 0;
+  static final byte STAR = 1;
+  static final byte BURST = 2;
+  static final byte TRAIL = 3;
+
+  // Palette of particle colors
+  static final byte WHITE = 0;
+  static final byte RED = 1;
+  static final byte GREEN = 2;
+  private static final int[] PALETTE = { 0xFFFFFF, 0xFF3232, 0x64FF64 };
+
+  // Opacity levels cached as Color objects for the Java2D path
+  private static final int ALPHA_LEVELS = 16;
+  private static final Color[][] COLORS = new Color[PALETTE.length][ALPHA_LEVELS];
+
+  static {
+    for (int c = 0; c < PALETTE.length; c++) {
+      for (int a = 0; a < ALPHA_LEVELS; a++) {
+        COLORS[c][a] = new Color(PALETTE[c] | (a * 255 / (ALPHA_LEVELS - 1)) << 24, true);
+      }
+    }
+  }
+
+  private final int capacity;
+  private final float width;
+  private final float height;
+
+  // Particle state, one entry per live particle in [0, count)
+  private final float[] x;
+  private final float[] y;
+  private final float[] vx;
+  private final float[] vy;
+  private final float[] age;
+  private final float[] life;
+  private final float[] size;
+  private final float[] alpha;
+  private final byte[] kind;
+  private final byte[] color;
+  private int count;
+
+  private final SplittableRandom random;
+
+  /**
+   * Creates an empty particle system for a board of the given pixel size.
+   *
+   * @param capacity Maximum number of live particles; emits beyond it are dropped
+   * @param seed     Seed for the effects' random stream
+   */
+  ParticleSystem(int capacity, int width, int height, long seed) {
+    this.capacity = capacity;
+    this.width = width;
+    this.height = height;
+    x = new float[capacity];
+    y = new float[capacity];
+    vx = new float[capacity];
+    vy = new float[capacity];
+    age = new float[capacity];
+    life = new float[capacity];
+    size = new float[capacity];
+    alpha = new float[capacity];
+    kind = new byte[capacity];
+    color = new byte[capacity];
+    random = new SplittableRandom(seed);
+  }
+
+  /**
+   * Removes every particle.
+   */
+  public void clear() {
+    count = 0;
+  }
+
+  /**
+   * Copies what painting needs of another system's live particles, so they
+   * can be painted while the original keeps updating. Both systems must have
+   * the same capacity.
+   */
+  public void copyFrom(ParticleSystem other) {
+    count = other.count;
+    System.arraycopy(other.x, 0, x, 0, count);
+    System.arraycopy(other.y, 0, y, 0, count);
+    System.arraycopy(other.age, 0, age, 0, count);
+    System.arraycopy(other.life, 0, life, 0, count);
+    System.arraycopy(other.size, 0, size, 0, count);
+    System.arraycopy(other.alpha, 0, alpha, 0, count);
+    System.arraycopy(other.kind, 0, kind, 0, count);
+    System.arraycopy(other.color, 0, color, 0, count);
+  }
+
+  /**
+   * Number of live particles.
+   */
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Adds twinkling sparkles at random positions. Each one reappears elsewhere
+   * when it fades out.
+   */
+  public void emitSparkles(int amount) {
+    for (int i = 0; i < amount && count < capacity; i++) {
+      resetSparkle(add(SPARKLE, WHITE));
+      age[count - 1] = (float) random.nextDouble() * life[count - 1];
+    }
+  }
+
+  /**
+   * Adds stars drifting to the left and wrapping around, for the Game Over
+   * screen.
+   */
+  public void emitStars(int amount) {
+    for (int i = 0; i < amount && count < capacity; i++) {
+      int p = add(STAR, WHITE);
+      x[p] = (float) random.nextDouble() * width;
+      y[p] = (float) random.nextDouble() * height;
+      vx[p] = -(30 + random.nextInt(50));
+      size[p] = 2 + random.nextInt(3);
+      alpha[p] = random.nextInt(150) / 255f;
+      life[p] = Float.POSITIVE_INFINITY;
+    }
+  }
+
+  /**
+   * Adds a burst of particles flying outwards from a point.
+   */
+  public void emitBurst(float originX, float originY, int amount, byte burstColor) {
+    for (int i = 0; i < amount && count < capacity; i++) {
+      int p = add(BURST, burstColor);
+      double angle = random.nextDouble() * Math.PI * 2;
+      float speed = 40 + (float) random.nextDouble() * 120;
+      x[p] = originX;
+      y[p] = originY;
+      vx[p] = (float) Math.cos(angle) * speed;
+      vy[p] = (float) Math.sin(angle) * speed;
+      size[p] = 2 + random.nextInt(3);
+      alpha[p] = 0.9f;
+      life[p] = 0.4f + (float) random.nextDouble() * 0.4f;
+    }
+  }
+
+  /**
+   * Adds a faint particle drifting away from a point, such as the tail.
+   */
+  public void emitTrail(float originX, float originY, byte trailColor) {
+    if (count >= capacity) {
+      return;
+    }
+    int p = add(TRAIL, trailColor);
+    x[p] = originX + (float) random.nextDouble() * 6 - 3;
+    y[p] = originY + (float) random.nextDouble() * 6 - 3;
+    vx[p] = (float) random.nextDouble() * 10 - 5;
+    vy[p] = (float) random.nextDouble() * 10 - 5;
+    size[p] = 3;
+    alpha[p] = 0.25f;
+    life[p] = 0.6f;
+  }
+
+  /**
+   * Advances every particle by dt seconds of simulation time.
+   */
+  public void update(float dt) {
+    for (int p = 0; p < count; p++) {
+      age[p] += dt;
+      x[p] += vx[p] * dt;
+      y[p] += vy[p] * dt;
+
+      if (kind[p] == STAR) {
+        if (x[p] < -size[p]) {
+          x[p] = width;
+          y[p] = (float) random.nextDouble() * height;
+        }
+      } else if (age[p] >= life[p]) {
+        if (kind[p] == SPARKLE) {
+          resetSparkle(p);
+        } else {
+          remove(p--);
+        }
+      }
+    }
+  }
+
+  /**
+   * Paints the particles with Java2D.
+   *
+   * @param scale Board pixels per panel pixel
+   */
+  public void paint(Graphics2D g2d, float scale) {
+    for (int p = 0; p < count; p++) {
+      int level = (int) (opacity(p) * (ALPHA_LEVELS - 1) + 0.5f);
+      if (level == 0) {
+        continue;
+      }
+      int diameter = Math.max(1, (int) (size[p] * scale));
+      g2d.setColor(COLORS[color[p]][level]);
+      g2d.fillOval((int) (x[p] * scale), (int) (y[p] * scale), diameter, diameter);
+    }
+  }
+
+  /**
+   * Paints the particles as square splats straight into an RGB pixel array.
+   *
+   * @param scale Board pixels per panel pixel
+   */
+  public void paint(int[] pixels, int pixelWidth, int pixelHeight, float scale) {
+    for (int p = 0; p < count; p++) {
+      int a = (int) (opacity(p) * 255);
+      if (a <= 0) {
+        continue;
+      }
+      int rgb = PALETTE[color[p]];
+      int premultiplied = a << 24
+          | (((rgb >>> 16) & 0xFF) * a / 255) << 16
+          | (((rgb >>> 8) & 0xFF) * a / 255) << 8
+          | (rgb & 0xFF) * a / 255;
+
+      int diameter = Math.max(1, (int) (size[p] * scale));
+      int left = Math.max(0, (int) (x[p] * scale));
+      int top = Math.max(0, (int) (y[p] * scale));
+      int right = Math.min(pixelWidth, (int) (x[p] * scale) + diameter);
+      int bottom = Math.min(pixelHeight, (int) (y[p] * scale) + diameter);
+      for (int row = top; row < bottom; row++) {
+        int index = row * pixelWidth;
+        for (int col = left; col < right; col++) {
+          pixels[index + col] = SoftwareRenderer.blend(premultiplied, pixels[index + col]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Current opacity of a particle, from 0 to 1.
+   */
+  private float opacity(int p) {
+    return switch (kind[p]) {
+      case SPARKLE -> alpha[p] * (float) Math.sin(Math.PI * age[p] / life[p]);
+      case STAR -> alpha[p];
+      default -> alpha[p] * (1 - age[p] / life[p]);
+    };
+  }
+
+  private void resetSparkle(int p) {
+    x[p] = (float) random.nextDouble() * width;
+    y[p] = (float) random.nextDouble() * height;
+    vx[p] = 0;
+    vy[p] = 0;
+    age[p] = 0;
+    life[p] = 0.5f + (float) random.nextDouble() * 1.5f;
+    size[p] = 2;
+    alpha[p] = random.nextInt(100) / 255f;
+  }
+
+  private int add(byte particleKind, byte particleColor) {
+    int p = count++;
+    kind[p] = particleKind;
+    color[p] = particleColor;
+    age[p] = 0;
+    vx[p] = 0;
+    vy[p] = 0;
+    return p;
+  }
+
+  /**
+   * Removes a particle by moving the last one into its slot.
+   */
+  private void remove(int p) {
+    int last = --count;
+    x[p] = x[last];
+    y[p] = y[last];
+    vx[p] = vx[last];
+    vy[p] = vy[last];
+    age[p] = age[last];
+    life[p] = life[last];
+    size[p] = size[last];
+    alpha[p] = alpha[last];
+    kind[p] = kind[last];
+    color[p] = color[last];
+  }
+}
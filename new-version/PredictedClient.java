@@ -0,0 +1,201 @@
+/**
+ * PredictedClient steps the local player's snake immediately on every tick
+ * instead of waiting for the server, keeping a short history of inputs and
+ * states. When an authoritative snapshot disagrees with what was predicted
+ * for that tick, the client rolls back to the snapshot and re-simulates the
+ * ticks since then with the inputs it recorded.
+ *
+ * The prediction runs a few ticks ahead of the server, so that inputs reach
+ * the server in time for the tick they were predicted on. When a snapshot
+ * shows the client has fallen behind, or that inputs reached the server late,
+ * the lead is widened.
+ */
+public class PredictedClient {
+
+  // Number of ticks of input and state history kept for reconciliation
+  static final int HISTORY = 128;
+
+  private static final int NO_INPUT = -1;
+
+  // The predicted state shown to the player
+  private final SnakeModel predicted = new SnakeModel();
+
+  // Predicted state after each tick, indexed by tick % HISTORY
+  private final SnakeModel[] states = new SnakeModel[HISTORY];
+
+  // Direction pressed for each tick, indexed by tick % HISTORY
+  private final int[] inputs = new int[HISTORY];
+
+  // Direction pressed since the last tick, applied on the next one
+  private int pendingInput = NO_INPUT;
+
+  // Ticks the prediction is kept ahead of the server
+  private int lead;
+
+  // Tick the client is on; ahead of the prediction only while it is dead
+  private int clock;
+
+  // Statistics for the latency harness
+  int snapshotsReceived;
+  int rollbacks;
+  long resimulatedTicks;
+  long reconcileNanos;
+
+  /**
+   * @param lead Ticks to predict ahead of the server, about the one-way
+   *             latency in ticks
+   */
+  PredictedClient(int lead) {
+    this.lead = lead;
+    for (int i = 0; i < HISTORY; i++) {
+      states[i] = new SnakeModel();
+    }
+  }
+
+  /**
+   * Starts a new game from the seed agreed with the server and predicts the
+   * first lead ticks.
+   */
+  public void start(long seed) {
+    predicted.reset(seed);
+    states[0].copyFrom(predicted);
+    java.util.Arrays.fill(inputs, NO_INPUT);
+    pendingInput = NO_INPUT;
+    clock = lead;
+    predictUntil(clock);
+  }
+
+  /**
+   * Records a direction pressed by the local player.
+   */
+  public void input(int direction) {
+    pendingInput = direction;
+  }
+
+  /**
+   * Advances the prediction by one tick.
+   *
+   * @return The tick the pending input (if any) was applied on, or -1
+   */
+  public int tick() {
+    clock++;
+    int input = pendingInput;
+    pendingInput = NO_INPUT;
+    if (!predicted.alive) {
+      // The clock keeps running so a snapshot can revive the prediction in step
+      inputs[clock % HISTORY] = NO_INPUT;
+      return NO_INPUT;
+    }
+
+    inputs[clock % HISTORY] = input;
+    if (input != NO_INPUT) {
+      predicted.turn(input);
+    }
+    predicted.step();
+    states[clock % HISTORY].copyFrom(predicted);
+    return input == NO_INPUT ? NO_INPUT : clock;
+  }
+
+  /**
+   * Reconciles the prediction with an authoritative snapshot.
+   *
+   * @param authoritative The server state after tick authoritative.tick
+   * @param lastInputTick The latest client input tick the server had received
+   *                      when it produced the snapshot
+   */
+  public void onSnapshot(SnakeModel authoritative, int lastInputTick) {
+    snapshotsReceived++;
+    int snapshotTick = authoritative.tick;
+
+    if (snapshotTick > clock || clock - snapshotTick >= HISTORY) {
+      // Too far ahead or behind to replay: adopt the server state and
+      // predict ahead of it again, further if the client had fallen behind
+      long start = System.nanoTime();
+      rollbacks++;
+      if (snapshotTick > clock) {
+        widenLead(snapshotTick - clock);
+      }
+      // Slots of ticks never predicted still hold inputs from HISTORY ticks ago
+      for (int t = Math.max(clock + 1, snapshotTick - HISTORY + 1); t <= snapshotTick; t++) {
+        inputs[t % HISTORY] = NO_INPUT;
+      }
+      predicted.copyFrom(authoritative);
+      states[snapshotTick % HISTORY].copyFrom(authoritative);
+      clock = snapshotTick + lead;
+      resimulatedTicks += predictUntil(clock);
+      reconcileNanos += System.nanoTime() - start;
+      return;
+    }
+
+    SnakeModel past = states[snapshotTick % HISTORY];
+    if (past.tick == snapshotTick && past.sameState(authoritative)) {
+      return;
+    }
+
+    long start = System.nanoTime();
+    rollbacks++;
+    predicted.copyFrom(authoritative);
+    past.copyFrom(authoritative);
+
+    // Inputs the server had not received yet will be applied on its next tick
+    boolean late = false;
+    for (int t = Math.max(lastInputTick + 1, clock - HISTORY + 1); t <= snapshotTick; t++) {
+      if (inputs[t % HISTORY] != NO_INPUT) {
+        predicted.turn(inputs[t % HISTORY]);
+        late = true;
+      }
+    }
+    if (late) {
+      // Inputs arrive after the tick they were meant for: run further ahead
+      widenLead(1);
+      clock++;
+      inputs[clock % HISTORY] = NO_INPUT;
+    }
+
+    for (int t = snapshotTick + 1; t <= clock && predicted.alive; t++) {
+      if (inputs[t % HISTORY] != NO_INPUT) {
+        predicted.turn(inputs[t % HISTORY]);
+      }
+      predicted.step();
+      states[t % HISTORY].copyFrom(predicted);
+      resimulatedTicks++;
+    }
+    reconcileNanos += System.nanoTime() - start;
+  }
+
+  private void widenLead(int ticks) {
+    lead = Math.min(lead + ticks, HISTORY / 2);
+  }
+
+  /**
+   * Predicts up to the given tick without input, as the server will play
+   * those ticks unless an input arrives.
+   *
+   * @return The number of ticks predicted
+   */
+  private int predictUntil(int tick) {
+    int predictedTicks = 0;
+    while (predicted.tick < tick && predicted.alive) {
+      int next = predicted.tick + 1;
+      inputs[next % HISTORY] = NO_INPUT;
+      predicted.step();
+      states[next % HISTORY].copyFrom(predicted);
+      predictedTicks++;
+    }
+    return predictedTicks;
+  }
+
+  /**
+   * Ticks the prediction is currently kept ahead by.
+   */
+  public int lead() {
+    return lead;
+  }
+
+  /**
+   * Returns the predicted state to render.
+   */
+  public SnakeModel state() {
+    return predicted;
+  }
+}
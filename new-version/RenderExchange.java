@@ -0,0 +1,81 @@
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * RenderExchange hands finished frames from the simulation to the painter
+ * without locks. Three pre-allocated render states rotate between the
+ * simulation, which fills its back state and publishes it with one atomic
+ * swap, and the painter, which swaps in the newest published state when
+ * there is one. Neither side ever waits for the other, and the painter always
+ * sees a complete tick instead of a model in the middle of being stepped.
+ */
+public class RenderExchange {
+
+  /**
+   * Everything the panel needs to paint one frame.
+   */
+  static class RenderState {
+    final SnakeModel model = new SnakeModel();
+    final ParticleSystem particles;
+    boolean tongueVisible;
+    GamePanel.GameState gameState = GamePanel.GameState.PLAYING;
+
+    // Autopilot status shown over the board
+    boolean autopilotEnabled;
+    double autopilotNodesPerSecond;
+    double autopilotRolloutDepth;
+
+    // Publication number, 0 before the state is first published
+    long sequence;
+
+    RenderState(int particleCapacity, int width, int height) {
+      particles = new ParticleSystem(particleCapacity, width, height, 0);
+    }
+  }
+
+  // Most recently published state, waiting for the painter
+  private final AtomicReference<RenderState> ready;
+
+  // Owned by the simulation thread
+  private RenderState back;
+  private long published;
+
+  // Owned by the painting thread
+  private RenderState front;
+
+  /**
+   * Creates the three render states.
+   */
+  RenderExchange(int particleCapacity, int width, int height) {
+    back = new RenderState(particleCapacity, width, height);
+    front = new RenderState(particleCapacity, width, height);
+    ready = new AtomicReference<>(new RenderState(particleCapacity, width, height));
+  }
+
+  /**
+   * The state the simulation fills before calling publish(). Only the
+   * simulation thread may use it.
+   */
+  public RenderState back() {
+    return back;
+  }
+
+  /**
+   * Makes the back state available to the painter and takes the previously
+   * ready one as the new back state.
+   */
+  public void publish() {
+    back.sequence = ++published;
+    back = ready.getAndSet(back);
+  }
+
+  /**
+   * Returns the newest published state for painting. The painter owns it
+   * until the next call, so it can be read without copying.
+   */
+  public RenderState acquire() {
+    if (ready.get().sequence > front.sequence) {
+      front = ready.getAndSet(front);
+    }
+    return front;
+  }
+}
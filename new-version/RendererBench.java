@@ -0,0 +1,64 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * RendererBench times the Java2D and software board renderers at several
+ * board sizes, painting a long snake into an off-screen RGB image.
+ *
+ * Usage: java -Djava.awt.headless=true RendererBench [frames]
+ */
+public class RendererBench {
+
+  private static final int[] UNITS = { 25, 50, 100 };
+
+  public static void main(String[] args) {
+    int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+
+    // A snake winding through the top half of the board
+    SnakeModel model = new SnakeModel();
+    model.reset(1);
+    model.bodyParts = SnakeModel.COLUMNS * SnakeModel.ROWS / 2;
+    for (int i = 0; i < model.bodyParts; i++) {
+      int row = i / SnakeModel.COLUMNS;
+      int column = i % SnakeModel.COLUMNS;
+      if (row % 2 == 1) {
+        column = SnakeModel.COLUMNS - 1 - column;
+      }
+      model.x[i] = column * GamePanel.UNIT_SIZE;
+      model.y[i] = row * GamePanel.UNIT_SIZE;
+    }
+    model.appleX = 3 * GamePanel.UNIT_SIZE;
+    model.appleY = (SnakeModel.ROWS - 3) * GamePanel.UNIT_SIZE;
+
+    ParticleSystem particles = new ParticleSystem(64, GamePanel.SCREEN_WIDTH, GamePanel.SCREEN_HEIGHT, 1);
+    particles.emitSparkles(20);
+
+    System.out.printf("%-10s %12s %12s %8s%n", "Board", "Java2D ms", "Software ms", "Speedup");
+    for (int unit : UNITS) {
+      int width = SnakeModel.COLUMNS * unit;
+      int height = SnakeModel.ROWS * unit;
+      double java2d = time(new Java2DRenderer(width, height, unit), model, particles, width, height, frames);
+      double software = time(new SoftwareRenderer(width, height, unit), model, particles, width, height, frames);
+      System.out.printf("%-10s %12.3f %12.3f %7.1fx%n", width + "x" + height, java2d, software, java2d / software);
+    }
+  }
+
+  /**
+   * Returns the average milliseconds per frame after a warm-up pass.
+   */
+  private static double time(BoardRenderer renderer, SnakeModel model, ParticleSystem particles,
+      int width, int height, int frames) {
+    BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2d = target.createGraphics();
+    for (int i = 0; i < frames / 4 + 1; i++) {
+      renderer.render(g2d, model, i % 2 == 0, particles);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < frames; i++) {
+      renderer.render(g2d, model, i % 2 == 0, particles);
+    }
+    long elapsed = System.nanoTime() - start;
+    g2d.dispose();
+    return elapsed / 1e6 / frames;
+  }
+}
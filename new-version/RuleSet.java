@@ -0,0 +1,200 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * RuleSet describes which variant of the rules a SnakeModel plays: whether
+ * the edges wrap around or kill the snake, which cells are blocked by
+ * obstacles, and how much faster the game gets with every apple. A rule set
+ * is plain immutable data read by the model's step code, so every variant
+ * runs through the same methods and the tick loop has no rule dispatch of
+ * its own to pay for.
+ */
+public final class RuleSet {
+
+  private static final int WORDS = (GamePanel.GAME_UNITS + 63) / 64;
+
+  // Fastest tick a rule set may ask for, in milliseconds
+  static final int MIN_DELAY = 20;
+
+  // Longest name kept in a save
+  static final int MAX_NAME = 32;
+
+  // Upper bound of the size written by writeTo()
+  static final int MAX_ENCODED_BYTES = 1 + MAX_NAME + 3 + WORDS * 8;
+
+  // Cells of the row the snake starts on, which must stay free of obstacles
+  private static final long[] START_ROW = startRow();
+
+  // Classic rules of the new version: edges wrap around
+  static final RuleSet WRAP = new RuleSet("wrap", false, new long[WORDS], 0, GamePanel.DELAY);
+
+  // Rules of the old version: touching an edge ends the game
+  static final RuleSet WALLS = new RuleSet("walls", true, new long[WORDS], 0, GamePanel.DELAY);
+
+  // Wrapping board with a few blocks in the way
+  static final RuleSet OBSTACLES = new RuleSet("obstacles", false, defaultObstacles(), 0, GamePanel.DELAY);
+
+  // Wrapping board that gets 3 ms faster with every apple, down to 40 ms
+  static final RuleSet SPEED_UP = new RuleSet("speedup", false, new long[WORDS], 3, 40);
+
+  final String name;
+
+  // Whether leaving the board kills the snake instead of wrapping it
+  final boolean walls;
+
+  // Blocked cells, one bit per cell index
+  private final long[] obstacles;
+
+  // Milliseconds taken off the tick for every apple eaten, and the floor
+  final int speedUpPerApple;
+  final int minimumDelay;
+
+  /**
+   * Creates a rule set. Obstacles are copied.
+   *
+   * @throws IllegalArgumentException if an obstacle is on the starting row, or
+   *                                  the minimum delay is below MIN_DELAY
+   */
+  RuleSet(String name, boolean walls, long[] obstacles, int speedUpPerApple, int minimumDelay) {
+    if (minimumDelay < MIN_DELAY) {
+      throw new IllegalArgumentException("Rule set " + name + " ticks faster than " + MIN_DELAY + " ms");
+    }
+    for (int w = 0; w < WORDS; w++) {
+      if (blocksStartRow(w, obstacles[w])) {
+        throw new IllegalArgumentException("Rule set " + name + " blocks the starting row");
+      }
+    }
+    this.name = name;
+    this.walls = walls;
+    this.obstacles = obstacles.clone();
+    this.speedUpPerApple = speedUpPerApple;
+    this.minimumDelay = minimumDelay;
+  }
+
+  /**
+   * Returns the rule set selected with -Dsnake.rules=wrap|walls|obstacles|speedup.
+   */
+  static RuleSet selected() {
+    String name = System.getProperty("snake.rules", WRAP.name);
+    for (RuleSet rules : new RuleSet[] { WRAP, WALLS, OBSTACLES, SPEED_UP }) {
+      if (rules.name.equals(name)) {
+        return rules;
+      }
+    }
+    throw new IllegalArgumentException("Unknown rule set: " + name);
+  }
+
+  public boolean isObstacle(int cell) {
+    return (obstacles[cell >>> 6] & (1L << cell)) != 0;
+  }
+
+  /**
+   * Adds one to the given per-cell counts for every obstacle.
+   */
+  void markObstacles(byte[] grid) {
+    for (int w = 0; w < obstacles.length; w++) {
+      for (long bits = obstacles[w]; bits != 0; bits &= bits - 1) {
+        grid[w * 64 + Long.numberOfTrailingZeros(bits)]++;
+      }
+    }
+  }
+
+  /**
+   * Whether a word of an obstacle bitmap has obstacles on the starting row.
+   */
+  private static boolean blocksStartRow(int word, long bits) {
+    return (bits & START_ROW[word]) != 0;
+  }
+
+  /**
+   * Whether two rule sets play the same game, whether or not they are the
+   * same instance.
+   */
+  public boolean sameRules(RuleSet other) {
+    return other == this || (other.walls == walls && other.speedUpPerApple == speedUpPerApple
+        && other.minimumDelay == minimumDelay && Arrays.equals(other.obstacles, obstacles));
+  }
+
+  /**
+   * Writes the rule set, name included, so a saved game can go on under it.
+   */
+  void writeTo(ByteBuffer buffer) {
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    int length = Math.min(nameBytes.length, MAX_NAME);
+    buffer.put((byte) length);
+    buffer.put(nameBytes, 0, length);
+    buffer.put((byte) (walls ? 1 : 0));
+    buffer.put((byte) speedUpPerApple);
+    buffer.put((byte) minimumDelay);
+    for (long word : obstacles) {
+      buffer.putLong(word);
+    }
+  }
+
+  /**
+   * Reads a rule set written by writeTo(), returning the preset instance when
+   * it matches one.
+   *
+   * @throws IllegalArgumentException if the data is not a valid rule set
+   */
+  static RuleSet readFrom(ByteBuffer buffer) {
+    int length = buffer.get() & 0xFF;
+    if (length > MAX_NAME) {
+      throw new IllegalArgumentException("Corrupt rule set");
+    }
+    byte[] nameBytes = new byte[length];
+    buffer.get(nameBytes);
+    boolean walls = buffer.get() != 0;
+    int speedUp = buffer.get() & 0xFF;
+    int minimumDelay = buffer.get() & 0xFF;
+    long[] obstacles = new long[WORDS];
+    for (int w = 0; w < WORDS; w++) {
+      obstacles[w] = buffer.getLong();
+    }
+    RuleSet rules = new RuleSet(new String(nameBytes, StandardCharsets.UTF_8), walls, obstacles,
+        speedUp, minimumDelay);
+    for (RuleSet preset : new RuleSet[] { WRAP, WALLS, OBSTACLES, SPEED_UP }) {
+      if (preset.name.equals(rules.name) && preset.sameRules(rules)) {
+        return preset;
+      }
+    }
+    return rules;
+  }
+
+  /**
+   * Timer delay in milliseconds after the given number of apples.
+   */
+  public int delay(int appleEaten) {
+    return Math.max(minimumDelay, GamePanel.DELAY - appleEaten * speedUpPerApple);
+  }
+
+  /**
+   * Four bars, one in each quarter of the board, clear of the starting row.
+   */
+  private static long[] defaultObstacles() {
+    long[] cells = new long[WORDS];
+    int columns = SnakeModel.COLUMNS;
+    int rows = SnakeModel.ROWS;
+    for (int i = 0; i < 6; i++) {
+      block(cells, rows / 4 * columns + columns / 4 - 3 + i);
+      block(cells, (rows * 3 / 4) * columns + columns * 3 / 4 - 3 + i);
+      block(cells, (rows / 4 - 2 + i) * columns + columns * 3 / 4);
+      block(cells, (rows * 3 / 4 - 3 + i) * columns + columns / 4);
+    }
+    return cells;
+  }
+
+  private static long[] startRow() {
+    long[] cells = new long[WORDS];
+    int row = GamePanel.SCREEN_HEIGHT / 2 / GamePanel.UNIT_SIZE;
+    for (int column = 0; column < SnakeModel.COLUMNS; column++) {
+      block(cells, row * SnakeModel.COLUMNS + column);
+    }
+    return cells;
+  }
+
+  private static void block(long[] cells, int cell) {
+    cells[cell >>> 6] |= 1L << cell;
+  }
+}
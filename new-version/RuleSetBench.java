@@ -0,0 +1,241 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * RuleSetBench checks that SnakeModel plays exactly like hard-coded copies of
+ * the wrap rules and of the old version's wall rules, then times the model
+ * under each rule set against its hard-coded counterpart.
+ *
+ * Usage: java RuleSetBench [steps]
+ */
+public class RuleSetBench {
+
+  private static final int UNIT = GamePanel.UNIT_SIZE;
+  private static final int WIDTH = GamePanel.SCREEN_WIDTH;
+  private static final int HEIGHT = GamePanel.SCREEN_HEIGHT;
+
+  // Pre-drawn turns, so driving the snake costs the same for every variant
+  private static final int[] TURNS = new int[1 << 16];
+
+  public static void main(String[] args) {
+    int steps = args.length > 0 ? Integer.parseInt(args[0]) : 50_000_000;
+
+    SplittableRandom random = new SplittableRandom(7);
+    for (int i = 0; i < TURNS.length; i++) {
+      // Mostly keep going, so games last long enough to matter
+      TURNS[i] = random.nextInt(6) < 4 ? -1 : random.nextInt(4);
+    }
+
+    System.out.println("Wrap matches hard-coded: " + matches(RuleSet.WRAP, new WrapReference(), 1_000_000));
+    System.out.println("Walls matches hard-coded: " + matches(RuleSet.WALLS, new WallsReference(), 1_000_000));
+
+    for (int pass = 0; pass < 2; pass++) {
+      report(pass, "wrap, SnakeModel", runModel(RuleSet.WRAP, steps), steps);
+      report(pass, "wrap, hard-coded", runWrap(new WrapReference(), steps), steps);
+      report(pass, "walls, SnakeModel", runModel(RuleSet.WALLS, steps), steps);
+      report(pass, "walls, hard-coded", runWalls(new WallsReference(), steps), steps);
+      report(pass, "obstacles, SnakeModel", runModel(RuleSet.OBSTACLES, steps), steps);
+    }
+  }
+
+  private static void report(int pass, String name, long nanos, int steps) {
+    if (pass == 1) {
+      System.out.printf("%-22s %,6.1f ns/step%n", name, (double) nanos / steps);
+    }
+  }
+
+  /**
+   * Steps a SnakeModel and a hard-coded copy side by side, comparing them
+   * after every tick.
+   */
+  private static boolean matches(RuleSet rules, Reference reference, int steps) {
+    SnakeModel model = new SnakeModel();
+    model.rules = rules;
+    long seed = 1;
+    model.reset(seed);
+    reference.reset(seed);
+    for (int i = 0; i < steps; i++) {
+      int turn = TURNS[i & (TURNS.length - 1)];
+      if (turn >= 0) {
+        model.turn(turn);
+        reference.turn(turn);
+      }
+      if (model.step() != reference.step() || model.bodyParts != reference.bodyParts
+          || model.x[0] != reference.x[0] || model.y[0] != reference.y[0]
+          || model.appleX != reference.appleX || model.appleY != reference.appleY) {
+        return false;
+      }
+      if (!model.alive) {
+        model.reset(++seed);
+        reference.reset(seed);
+      }
+    }
+    return true;
+  }
+
+  private static long runModel(RuleSet rules, int steps) {
+    SnakeModel model = new SnakeModel();
+    model.rules = rules;
+    long seed = 1;
+    model.reset(seed);
+    long start = System.nanoTime();
+    for (int i = 0; i < steps; i++) {
+      int turn = TURNS[i & (TURNS.length - 1)];
+      if (turn >= 0) {
+        model.turn(turn);
+      }
+      if ((model.step() & SnakeModel.DIED) != 0) {
+        model.reset(++seed);
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static long runWrap(WrapReference game, int steps) {
+    long seed = 1;
+    game.reset(seed);
+    long start = System.nanoTime();
+    for (int i = 0; i < steps; i++) {
+      int turn = TURNS[i & (TURNS.length - 1)];
+      if (turn >= 0) {
+        game.turn(turn);
+      }
+      if ((game.step() & SnakeModel.DIED) != 0) {
+        game.reset(++seed);
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static long runWalls(WallsReference game, int steps) {
+    long seed = 1;
+    game.reset(seed);
+    long start = System.nanoTime();
+    for (int i = 0; i < steps; i++) {
+      int turn = TURNS[i & (TURNS.length - 1)];
+      if (turn >= 0) {
+        game.turn(turn);
+      }
+      if ((game.step() & SnakeModel.DIED) != 0) {
+        game.reset(++seed);
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  /**
+   * State shared by the hard-coded games, with no rules of its own. Like
+   * SnakeModel, it counts body parts per cell so collisions and apple
+   * placement take constant time, and the bench measures only what the rule
+   * set costs.
+   */
+  private abstract static class Reference {
+    final int[] x = new int[GamePanel.GAME_UNITS];
+    final int[] y = new int[GamePanel.GAME_UNITS];
+    final byte[] grid = new byte[GamePanel.GAME_UNITS];
+    int bodyParts;
+    int direction;
+    int appleX;
+    int appleY;
+    long seed;
+
+    abstract int step();
+
+    void reset(long newSeed) {
+      seed = newSeed;
+      bodyParts = SnakeModel.INITIAL_BODY_PARTS;
+      direction = SnakeModel.RIGHT;
+      Arrays.fill(grid, (byte) 0);
+      for (int i = 0; i < bodyParts; i++) {
+        x[i] = WIDTH / 2 - UNIT * i;
+        y[i] = HEIGHT / 2;
+        grid[SnakeModel.cellOf(x[i], y[i])]++;
+      }
+      newApple();
+    }
+
+    void turn(int newDirection) {
+      if ((newDirection ^ direction) != 1) {
+        direction = newDirection;
+      }
+    }
+
+    final void newApple() {
+      do {
+        seed += SnakeModel.SEED_INCREMENT;
+        appleX = SnakeModel.draw(seed, WIDTH / UNIT) * UNIT;
+        seed += SnakeModel.SEED_INCREMENT;
+        appleY = SnakeModel.draw(seed, HEIGHT / UNIT) * UNIT;
+      } while (grid[SnakeModel.cellOf(appleX, appleY)] != 0);
+    }
+
+    /**
+     * Grows the snake by the tail part that just moved off its cell.
+     */
+    final int eat() {
+      grid[SnakeModel.cellOf(x[bodyParts], y[bodyParts])]++;
+      bodyParts++;
+      newApple();
+      return SnakeModel.ATE;
+    }
+  }
+
+  /**
+   * SnakeModel's step as it was before rule sets, with wrapping edges.
+   */
+  private static final class WrapReference extends Reference {
+    @Override
+    int step() {
+      grid[SnakeModel.cellOf(x[bodyParts - 1], y[bodyParts - 1])]--;
+      for (int i = bodyParts; i > 0; i--) {
+        x[i] = x[i - 1];
+        y[i] = y[i - 1];
+      }
+      switch (direction) {
+        case SnakeModel.UP -> y[0] -= UNIT;
+        case SnakeModel.DOWN -> y[0] += UNIT;
+        case SnakeModel.LEFT -> x[0] -= UNIT;
+        case SnakeModel.RIGHT -> x[0] += UNIT;
+      }
+      x[0] = x[0] < 0 ? WIDTH - UNIT : x[0] >= WIDTH ? 0 : x[0];
+      y[0] = y[0] < 0 ? HEIGHT - UNIT : y[0] >= HEIGHT ? 0 : y[0];
+      int head = SnakeModel.cellOf(x[0], y[0]);
+      grid[head]++;
+
+      int events = x[0] == appleX && y[0] == appleY ? eat() : 0;
+      return grid[head] > 1 ? events | SnakeModel.DIED : events;
+    }
+  }
+
+  /**
+   * The old version's rules: running into an edge ends the game.
+   */
+  private static final class WallsReference extends Reference {
+    @Override
+    int step() {
+      int headX = x[0];
+      int headY = y[0];
+      switch (direction) {
+        case SnakeModel.UP -> headY -= UNIT;
+        case SnakeModel.DOWN -> headY += UNIT;
+        case SnakeModel.LEFT -> headX -= UNIT;
+        case SnakeModel.RIGHT -> headX += UNIT;
+      }
+      if (headX < 0 || headX >= WIDTH || headY < 0 || headY >= HEIGHT) {
+        return SnakeModel.DIED;
+      }
+      grid[SnakeModel.cellOf(x[bodyParts - 1], y[bodyParts - 1])]--;
+      for (int i = bodyParts; i > 0; i--) {
+        x[i] = x[i - 1];
+        y[i] = y[i - 1];
+      }
+      x[0] = headX;
+      y[0] = headY;
+      int head = SnakeModel.cellOf(x[0], y[0]);
+      grid[head]++;
+
+      int events = x[0] == appleX && y[0] == appleY ? eat() : 0;
+      return grid[head] > 1 ? events | SnakeModel.DIED : events;
+    }
+  }
+}
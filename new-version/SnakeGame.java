@@ -9,6 +9,6 @@ public class SnakeGame {
      * @param args Command line arguments
      */
     public static void main(String[] args) {
-        new GameFrame();
+        Boot.launch();
     }
 }
\ No newline at end of file
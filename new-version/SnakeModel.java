@@ -0,0 +1,428 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * SnakeModel holds the deterministic state of a single game and the step
+ * rules used to advance it. The panel, predicting clients and the server all
+ * step the same model, so a given seed and input sequence always produces the
+ * same game.
+ */
+public class SnakeModel {
+
+  // Direction constants
+  static final int UP = 0;
+  static final int DOWN = 1;
+  static final int LEFT = 2;
+  static final int RIGHT = 3;
+
+  // Event flags returned by step()
+  static final int ATE = 1;
+  static final int DIED = 2;
+
+  static final int INITIAL_BODY_PARTS = 6;
+
+  // Board size in cells
+  static final int COLUMNS = GamePanel.SCREEN_WIDTH / GamePanel.UNIT_SIZE;
+  static final int ROWS = GamePanel.SCREEN_HEIGHT / GamePanel.UNIT_SIZE;
+
+  // Step of the SplitMix64 apple generator
+  static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+  // Upper bound of the size written by writeTo()
+  static final int MAX_SNAPSHOT_BYTES = RuleSet.MAX_ENCODED_BYTES + 22 + 2 * GamePanel.GAME_UNITS;
+
+  // Snake properties
+  final int x[] = new int[GamePanel.GAME_UNITS];
+  final int y[] = new int[GamePanel.GAME_UNITS];
+  int bodyParts;
+  int direction;
+
+  // Apple properties
+  int appleEaten;
+  int appleX;
+  int appleY;
+
+  boolean alive;
+
+  // Number of steps taken since reset
+  int tick;
+
+  // State of the apple placement generator
+  long seed;
+
+  // Variant of the rules being played; takes effect at the next reset() or startLevel()
+  RuleSet rules = RuleSet.WRAP;
+
+  // Number of obstacles and body parts on each cell, so collisions and apple
+  // placement are checked in constant time
+  private final byte[] grid = new byte[GamePanel.GAME_UNITS];
+
+  // Set by move() when the head ran into a wall, consumed by checkCollisions()
+  private boolean hitWall;
+
+  /**
+   * Resets the model to the starting position, seeding apple placement.
+   *
+   * @param seed Seed for the apple placement generator
+   */
+  public void reset(long seed) {
+    this.seed = seed;
+    appleEaten = 0;
+    alive = true;
+    tick = 0;
+    placeSnake();
+  }
+
+  /**
+   * Switches to another rule set mid-game, such as the next level: the snake
+   * starts over from the starting position at its initial length, keeping the
+   * score and the apple generator.
+   */
+  public void startLevel(RuleSet newRules) {
+    rules = newRules;
+    placeSnake();
+  }
+
+  private void placeSnake() {
+    bodyParts = INITIAL_BODY_PARTS;
+    direction = RIGHT;
+    hitWall = false;
+
+    int startX = GamePanel.SCREEN_WIDTH / 2;
+    int startY = GamePanel.SCREEN_HEIGHT / 2;
+    for (int i = 0; i < bodyParts; i++) {
+      x[i] = startX - GamePanel.UNIT_SIZE * i;
+      y[i] = startY;
+    }
+    rebuildGrid();
+
+    newApple();
+  }
+
+  /**
+   * Recomputes the collision grid from the rule set and the body.
+   */
+  private void rebuildGrid() {
+    Arrays.fill(grid, (byte) 0);
+    rules.markObstacles(grid);
+    for (int i = 0; i < bodyParts; i++) {
+      grid[cellOf(x[i], y[i])]++;
+    }
+  }
+
+  /**
+   * Changes direction unless the snake would turn back onto itself.
+   *
+   * @param newDirection One of UP, DOWN, LEFT or RIGHT
+   */
+  public void turn(int newDirection) {
+    switch (newDirection) {
+      case UP -> {
+        if (direction != DOWN) {
+          direction = UP;
+        }
+      }
+      case DOWN -> {
+        if (direction != UP) {
+          direction = DOWN;
+        }
+      }
+      case LEFT -> {
+        if (direction != RIGHT) {
+          direction = LEFT;
+        }
+      }
+      case RIGHT -> {
+        if (direction != LEFT) {
+          direction = RIGHT;
+        }
+      }
+    }
+  }
+
+  /**
+   * Advances the game by one tick.
+   *
+   * @return A combination of the ATE and DIED flags
+   */
+  public int step() {
+    move();
+    int events = checkApple() ? ATE : 0;
+    if (checkCollisions()) {
+      events |= DIED;
+    }
+    tick++;
+    return events;
+  }
+
+  /**
+   * Creates a new apple at a random position not covered by the snake or an
+   * obstacle.
+   */
+  public void newApple() {
+    do {
+      appleX = nextInt(GamePanel.SCREEN_WIDTH / GamePanel.UNIT_SIZE) * GamePanel.UNIT_SIZE;
+      appleY = nextInt(GamePanel.SCREEN_HEIGHT / GamePanel.UNIT_SIZE) * GamePanel.UNIT_SIZE;
+    } while (grid[cellOf(appleX, appleY)] != 0);
+  }
+
+  /**
+   * Moves the snake and handles screen wrapping. With walls, a snake about to
+   * leave the board stays where it is and dies in checkCollisions().
+   */
+  public void move() {
+    int headX = x[0];
+    int headY = y[0];
+    switch (direction) {
+      case UP -> headY -= GamePanel.UNIT_SIZE;
+      case DOWN -> headY += GamePanel.UNIT_SIZE;
+      case LEFT -> headX -= GamePanel.UNIT_SIZE;
+      case RIGHT -> headX += GamePanel.UNIT_SIZE;
+    }
+
+    if (rules.walls && (headX < 0 || headX >= GamePanel.SCREEN_WIDTH
+        || headY < 0 || headY >= GamePanel.SCREEN_HEIGHT)) {
+      hitWall = true;
+      return;
+    }
+
+    // The tail leaves its cell; checkApple() puts it back if the snake grows
+    grid[cellOf(x[bodyParts - 1], y[bodyParts - 1])]--;
+    for (int i = bodyParts; i > 0; i--) {
+      x[i] = x[i - 1];
+      y[i] = y[i - 1];
+    }
+    x[0] = wrapX(headX);
+    y[0] = wrapY(headY);
+    grid[cellOf(x[0], y[0])]++;
+  }
+
+  /**
+   * Checks if the snake has eaten an apple, growing it if so.
+   *
+   * @return true if an apple was eaten
+   */
+  public boolean checkApple() {
+    if ((x[0] == appleX) && (y[0] == appleY)) {
+      grid[cellOf(x[bodyParts], y[bodyParts])]++;
+      bodyParts++;
+      appleEaten++;
+      newApple();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Checks for collisions with the walls, obstacles and the snake itself.
+   *
+   * @return true if the snake died on this check
+   */
+  public boolean checkCollisions() {
+    if (hitWall || grid[cellOf(x[0], y[0])] > 1) {
+      hitWall = false;
+      alive = false;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Determines if the apple lies within the given number of steps ahead.
+   */
+  public boolean isAboutToEat(int proximity) {
+    for (int step = 1; step <= proximity; step++) {
+      int nextHeadX = x[0];
+      int nextHeadY = y[0];
+
+      switch (direction) {
+        case UP -> nextHeadY -= GamePanel.UNIT_SIZE * step;
+        case DOWN -> nextHeadY += GamePanel.UNIT_SIZE * step;
+        case LEFT -> nextHeadX -= GamePanel.UNIT_SIZE * step;
+        case RIGHT -> nextHeadX += GamePanel.UNIT_SIZE * step;
+      }
+
+      if (!rules.walls) {
+        nextHeadX = wrapX(nextHeadX);
+        nextHeadY = wrapY(nextHeadY);
+      }
+      if ((appleX == nextHeadX) && (appleY == nextHeadY)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Copies the full state of another model into this one. Only the live part
+   * of the body is copied, which keeps cloning cheap for lookahead search.
+   */
+  public void copyFrom(SnakeModel other) {
+    System.arraycopy(other.x, 0, x, 0, other.bodyParts + 1);
+    System.arraycopy(other.y, 0, y, 0, other.bodyParts + 1);
+    bodyParts = other.bodyParts;
+    direction = other.direction;
+    appleEaten = other.appleEaten;
+    appleX = other.appleX;
+    appleY = other.appleY;
+    alive = other.alive;
+    tick = other.tick;
+    seed = other.seed;
+    rules = other.rules;
+    System.arraycopy(other.grid, 0, grid, 0, grid.length);
+  }
+
+  /**
+   * Compares the gameplay-relevant state of two models.
+   *
+   * @return true if both models will evolve identically from here
+   */
+  public boolean sameState(SnakeModel other) {
+    if (tick != other.tick || bodyParts != other.bodyParts || direction != other.direction
+        || appleX != other.appleX || appleY != other.appleY || appleEaten != other.appleEaten
+        || alive != other.alive || seed != other.seed || !rules.sameRules(other.rules)) {
+      return false;
+    }
+    for (int i = 0; i < bodyParts; i++) {
+      if (x[i] != other.x[i] || y[i] != other.y[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes the full state to a buffer in a compact binary form: the rules
+   * first, then positions as cell indices and the apple generator as its
+   * single long state.
+   */
+  public void writeTo(ByteBuffer buffer) {
+    rules.writeTo(buffer);
+    buffer.putInt(tick);
+    buffer.putLong(seed);
+    buffer.put((byte) direction);
+    buffer.put((byte) (alive ? 1 : 0));
+    buffer.putInt(appleEaten);
+    buffer.putShort((short) cellOf(appleX, appleY));
+    buffer.putShort((short) bodyParts);
+    for (int i = 0; i < bodyParts; i++) {
+      buffer.putShort((short) cellOf(x[i], y[i]));
+    }
+  }
+
+  /**
+   * Replaces the state with one written by writeTo().
+   *
+   * @throws IllegalArgumentException if the data is not a valid state
+   */
+  public void readFrom(ByteBuffer buffer) {
+    RuleSet newRules = RuleSet.readFrom(buffer);
+    int newTick = buffer.getInt();
+    long newSeed = buffer.getLong();
+    int newDirection = buffer.get();
+    boolean newAlive = buffer.get() != 0;
+    int newAppleEaten = buffer.getInt();
+    int appleCell = buffer.getShort();
+    int newBodyParts = buffer.getShort();
+    if (newTick < 0 || newAppleEaten < 0 || newAppleEaten > GamePanel.GAME_UNITS
+        || newDirection < UP || newDirection > RIGHT || newBodyParts < 1 || newBodyParts >= GamePanel.GAME_UNITS
+        || appleCell < 0 || appleCell >= GamePanel.GAME_UNITS) {
+      throw new IllegalArgumentException("Corrupt snapshot");
+    }
+    for (int i = 0; i < newBodyParts; i++) {
+      int cell = buffer.getShort();
+      if (cell < 0 || cell >= GamePanel.GAME_UNITS) {
+        throw new IllegalArgumentException("Corrupt snapshot");
+      }
+      x[i] = cellX(cell);
+      y[i] = cellY(cell);
+    }
+
+    rules = newRules;
+    tick = newTick;
+    seed = newSeed;
+    direction = newDirection;
+    alive = newAlive;
+    appleEaten = newAppleEaten;
+    appleX = cellX(appleCell);
+    appleY = cellY(appleCell);
+    bodyParts = newBodyParts;
+    hitWall = false;
+    rebuildGrid();
+
+    // Body cells never overlap each other or obstacles; only a dead snake's
+    // head may be on one of them
+    int head = cellOf(x[0], y[0]);
+    grid[head]--;
+    for (int i = 1; i < bodyParts; i++) {
+      if (grid[cellOf(x[i], y[i])] > 1) {
+        throw new IllegalArgumentException("Corrupt snapshot");
+      }
+    }
+    if (alive && grid[head] != 0) {
+      throw new IllegalArgumentException("Corrupt snapshot");
+    }
+    grid[head]++;
+  }
+
+  /**
+   * Converts pixel coordinates to a cell index (row * COLUMNS + column).
+   */
+  static int cellOf(int x, int y) {
+    return (y / GamePanel.UNIT_SIZE) * COLUMNS + x / GamePanel.UNIT_SIZE;
+  }
+
+  static int cellX(int cell) {
+    return (cell % COLUMNS) * GamePanel.UNIT_SIZE;
+  }
+
+  static int cellY(int cell) {
+    return (cell / COLUMNS) * GamePanel.UNIT_SIZE;
+  }
+
+  private static int wrapX(int value) {
+    if (value < 0) {
+      return GamePanel.SCREEN_WIDTH - GamePanel.UNIT_SIZE;
+    } else if (value >= GamePanel.SCREEN_WIDTH) {
+      return 0;
+    }
+    return value;
+  }
+
+  private static int wrapY(int value) {
+    if (value < 0) {
+      return GamePanel.SCREEN_HEIGHT - GamePanel.UNIT_SIZE;
+    } else if (value >= GamePanel.SCREEN_HEIGHT) {
+      return 0;
+    }
+    return value;
+  }
+
+  /**
+   * Returns a value in [0, bound) from a SplitMix64 stream, so the generator
+   * state is a single long that can be copied along with the rest of the model.
+   */
+  private int nextInt(int bound) {
+    seed += SEED_INCREMENT;
+    return draw(seed, bound);
+  }
+
+  /**
+   * Maps an advanced SplitMix64 state to a value in [0, bound). Shared by
+   * every representation of the game so they all place apples identically.
+   */
+  static int draw(long state, int bound) {
+    long z = mix(state);
+    return (int) (((z >>> 32) * bound) >>> 32);
+  }
+
+  /**
+   * The SplitMix64 finaliser, which scrambles every bit of its input.
+   */
+  static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
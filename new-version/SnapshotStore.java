@@ -0,0 +1,116 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * SnapshotStore saves and restores complete games as small binary files, so a
+ * paused game survives a restart and players can keep quick-save slots.
+ */
+public class SnapshotStore {
+    static final String AUTOSAVE = "autosave";
+    static final String QUICKSAVE = "quicksave";
+
+    private static final int MAGIC = 0x534E4B32; // "SNK2"
+
+    // Reused for every save and load, sized for the longest possible snake
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(5 + SnakeModel.MAX_SNAPSHOT_BYTES);
+
+    // Decoded into first so a corrupt file never leaves the game half-loaded
+    private final SnakeModel scratch = new SnakeModel();
+
+    /**
+     * Saves the game to the named slot, replacing any previous save.
+     *
+     * @param slot  Name of the save slot
+     * @param model Game to save
+     * @param state State of the game screen
+     */
+    public void save(String slot, SnakeModel model, GamePanel.GameState state) {
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.put((byte) state.ordinal());
+        model.writeTo(buffer);
+        buffer.flip();
+
+        Path temp = pathOf(slot + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            Files.move(temp, pathOf(slot), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Loads the named slot into the given model.
+     *
+     * @param slot  Name of the save slot
+     * @param model Game to restore into
+     * @return The saved state of the game screen, or null if there is no
+     *         usable save in the slot
+     */
+    public GamePanel.GameState load(String slot, SnakeModel model) {
+        Path path = pathOf(slot);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        buffer.clear();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer) > 0) {
+                // Keep reading until the file is exhausted
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+        buffer.flip();
+
+        try {
+            GamePanel.GameState[] states = GamePanel.GameState.values();
+            if (buffer.getInt() != MAGIC) {
+                return null;
+            }
+            int state = buffer.get();
+            if (state < 0 || state >= states.length) {
+                return null;
+            }
+            scratch.readFrom(buffer);
+            model.copyFrom(scratch);
+            return states[state];
+        } catch (RuntimeException e) {
+            System.err.println("Ignoring unreadable save " + path + ": " + e);
+            return null;
+        }
+    }
+
+    /**
+     * Removes the named slot, if present.
+     */
+    public void delete(String slot) {
+        try {
+            Files.deleteIfExists(pathOf(slot));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static Path pathOf(String slot) {
+        return Paths.get(slot + ".dat");
+    }
+}
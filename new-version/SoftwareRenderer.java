@@ -0,0 +1,198 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * SoftwareRenderer composes the board directly in the pixel array of an
+ * integer RGB image. The background and one tile per kind of cell (apple,
+ * obstacle, head, tongue, body shade) are painted once with Java2DRenderer
+ * when the renderer is created; each frame then only copies the background
+ * and blends tiles, which stays fast where Java2D falls back to slow software
+ * loops for antialiased gradients.
+ */
+public class SoftwareRenderer implements BoardRenderer {
+
+  // Number of pre-rendered opacity levels for the fading body
+  private static final int BODY_SHADES = 8;
+
+  private final int width;
+  private final int height;
+  private final int unit;
+
+  private final BufferedImage frame;
+  private final int[] pixels;
+  private final int[] background;
+
+  private final Tile apple;
+  private final Tile obstacle;
+  private final Tile head;
+  private final Tile[] body = new Tile[BODY_SHADES];
+  private final Tile[] tongue = new Tile[4];
+
+  /**
+   * A pre-rendered, premultiplied ARGB image placed relative to a cell origin.
+   */
+  private static class Tile {
+    final int[] argb;
+    final int width;
+    final int height;
+    final int offsetX;
+    final int offsetY;
+
+    Tile(int[] argb, int width, int height, int offsetX, int offsetY) {
+      this.argb = argb;
+      this.width = width;
+      this.height = height;
+      this.offsetX = offsetX;
+      this.offsetY = offsetY;
+    }
+  }
+
+  /**
+   * Functional hook for painting a tile with Java2D at a given cell origin.
+   */
+  private interface TilePainter {
+    void paint(Graphics2D g2d, int x, int y);
+  }
+
+  /**
+   * Creates a renderer for a board of the given pixel size and cell size,
+   * pre-rendering the background and all tiles.
+   */
+  SoftwareRenderer(int width, int height, int unit) {
+    this.width = width;
+    this.height = height;
+    this.unit = unit;
+
+    frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+
+    BufferedImage backgroundImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    Graphics2D g2d = backgroundImage.createGraphics();
+    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    Java2DRenderer.paintBackground(g2d, width, height, unit);
+    g2d.dispose();
+    background = ((DataBufferInt) backgroundImage.getRaster().getDataBuffer()).getData();
+
+    apple = bake((g, x, y) -> Java2DRenderer.paintApple(g, x, y, unit));
+    obstacle = bake((g, x, y) -> Java2DRenderer.paintObstacle(g, x, y, unit));
+    head = bake((g, x, y) -> Java2DRenderer.paintHead(g, x, y, unit, -1));
+    for (int shade = 0; shade < BODY_SHADES; shade++) {
+      float alpha = 1.0f - (shade + 0.5f) / BODY_SHADES * 0.3f;
+      body[shade] = bake((g, x, y) -> Java2DRenderer.paintBody(g, x, y, unit, alpha));
+    }
+    for (int dir = SnakeModel.UP; dir <= SnakeModel.RIGHT; dir++) {
+      int direction = dir;
+      tongue[dir] = bake((g, x, y) -> Java2DRenderer.paintTongue(g, x, y, unit, direction));
+    }
+  }
+
+  @Override
+  public void render(Graphics2D g2d, SnakeModel model, boolean tongueVisible, ParticleSystem particles) {
+    System.arraycopy(background, 0, pixels, 0, pixels.length);
+
+    for (int cell = 0; cell < GamePanel.GAME_UNITS; cell++) {
+      if (model.rules.isObstacle(cell)) {
+        blit(obstacle, scale(SnakeModel.cellX(cell)), scale(SnakeModel.cellY(cell)));
+      }
+    }
+    blit(apple, scale(model.appleX), scale(model.appleY));
+
+    if (tongueVisible) {
+      blit(tongue[model.direction], scale(model.x[0]), scale(model.y[0]));
+    }
+    blit(head, scale(model.x[0]), scale(model.y[0]));
+    for (int i = 1; i < model.bodyParts; i++) {
+      blit(body[i * BODY_SHADES / model.bodyParts], scale(model.x[i]), scale(model.y[i]));
+    }
+
+    particles.paint(pixels, width, height, (float) unit / GamePanel.UNIT_SIZE);
+
+    g2d.drawImage(frame, 0, 0, null);
+  }
+
+  /**
+   * Converts a model coordinate to a pixel coordinate on this board.
+   */
+  private int scale(int coordinate) {
+    return coordinate / GamePanel.UNIT_SIZE * unit;
+  }
+
+  /**
+   * Blends a tile over the frame with its cell origin at (x, y), clipping it
+   * to the frame bounds.
+   */
+  private void blit(Tile tile, int x, int y) {
+    int left = x + tile.offsetX;
+    int top = y + tile.offsetY;
+    int startCol = Math.max(0, -left);
+    int startRow = Math.max(0, -top);
+    int endCol = Math.min(tile.width, width - left);
+    int endRow = Math.min(tile.height, height - top);
+
+    for (int row = startRow; row < endRow; row++) {
+      int src = row * tile.width;
+      int dst = (top + row) * width + left;
+      for (int col = startCol; col < endCol; col++) {
+        int color = tile.argb[src + col];
+        int alpha = color >>> 24;
+        if (alpha == 255) {
+          pixels[dst + col] = color;
+        } else if (alpha != 0) {
+          pixels[dst + col] = blend(color, pixels[dst + col]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Composes a premultiplied ARGB color over an opaque RGB pixel.
+   */
+  static int blend(int color, int pixel) {
+    int inverse = 255 - (color >>> 24);
+    int redBlue = (((pixel & 0xFF00FF) * inverse) >>> 8) & 0xFF00FF;
+    int green = (((pixel & 0x00FF00) * inverse) >>> 8) & 0x00FF00;
+    return (color & 0xFFFFFF) + redBlue + green;
+  }
+
+  /**
+   * Paints a tile with Java2D onto a transparent canvas with a cell of margin
+   * on every side, then crops it to its visible pixels.
+   */
+  private Tile bake(TilePainter painter) {
+    int size = unit * 3;
+    BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+    Graphics2D g2d = image.createGraphics();
+    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    painter.paint(g2d, unit, unit);
+    g2d.dispose();
+
+    int[] argb = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    int minX = size;
+    int minY = size;
+    int maxX = -1;
+    int maxY = -1;
+    for (int y = 0; y < size; y++) {
+      for (int x = 0; x < size; x++) {
+        if (argb[y * size + x] >>> 24 != 0) {
+          minX = Math.min(minX, x);
+          minY = Math.min(minY, y);
+          maxX = Math.max(maxX, x);
+          maxY = Math.max(maxY, y);
+        }
+      }
+    }
+    if (maxX < 0) {
+      return new Tile(new int[0], 0, 0, 0, 0);
+    }
+
+    int tileWidth = maxX - minX + 1;
+    int tileHeight = maxY - minY + 1;
+    int[] cropped = new int[tileWidth * tileHeight];
+    for (int y = 0; y < tileHeight; y++) {
+      System.arraycopy(argb, (minY + y) * size + minX, cropped, y * tileWidth, tileWidth);
+    }
+    return new Tile(cropped, tileWidth, tileHeight, minX - unit, minY - unit);
+  }
+}
@@ -1,4 +1,7 @@
+import java.io.BufferedInputStream;
 import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.sound.sampled.*;
 
 /**
@@ -8,25 +11,58 @@ public class SoundManager {
     private static final String EAT_SOUND = "/asset/food.wav";
     private static final String GAME_OVER_SOUND = "/asset/gameover.wav";
 
+    // Clips opened ahead of time by preload(), by resource path
+    private final Map<String, Clip> clips = new ConcurrentHashMap<>();
+
+    /**
+     * Starts the audio system and opens the game's sounds, so the first sound
+     * played mid-game does not stall. Meant to run on a background thread.
+     */
+    public void preload() {
+        for (String path : new String[] { EAT_SOUND, GAME_OVER_SOUND }) {
+            Clip clip = open(path);
+            if (clip != null) {
+                clips.put(path, clip);
+            }
+        }
+    }
+
     /**
-     * Plays a sound from the specified file path.
+     * Plays a sound from the specified file path. A sound that preload() has
+     * not opened yet is skipped rather than opened here, which would stall
+     * the event dispatch thread.
      *
      * @param soundFilePath Path to the sound file
      */
     public void playSound(String soundFilePath) {
+        Clip clip = clips.get(soundFilePath);
+        if (clip != null) {
+            clip.stop();
+            clip.setFramePosition(0);
+            clip.start();
+        }
+    }
+
+    /**
+     * Opens a sound resource as a clip ready to start.
+     *
+     * @return The clip, or null if the sound could not be loaded
+     */
+    private Clip open(String soundFilePath) {
         try {
             // Load the sound file as a resource
             InputStream audioSrc = getClass().getResourceAsStream(soundFilePath);
             if (audioSrc == null) {
                 System.err.println("Sound file not found: " + soundFilePath);
-                return;
+                return null;
             }
-            AudioInputStream audioStream = AudioSystem.getAudioInputStream(audioSrc);
+            AudioInputStream audioStream = AudioSystem.getAudioInputStream(new BufferedInputStream(audioSrc));
             Clip clip = AudioSystem.getClip();
             clip.open(audioStream);
-            clip.start();
+            return clip;
         } catch (Exception e) {
             e.printStackTrace();
+            return null;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+
+/**
+ * SpectatorBench connects many local viewers to a SpectatorServer, publishes
+ * ticks as fast as possible and reports delivery throughput. One viewer never
+ * reads, to exercise slow-consumer skipping. The server's ring is much smaller
+ * than the default, so that this viewer falls half a ring behind within the
+ * run once its socket buffers are full.
+ *
+ * Usage: java SpectatorBench [viewers] [seconds] [ring bytes]
+ */
+public class SpectatorBench {
+
+  public static void main(String[] args) throws IOException, InterruptedException {
+    int viewerCount = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+    int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+    int ring = args.length > 2 ? Integer.parseInt(args[2]) : 1 << 13;
+
+    SpectatorServer server = new SpectatorServer(0, ring);
+    server.start();
+    int port = server.port();
+
+    Selector selector = Selector.open();
+    SocketChannel stalled = SocketChannel.open();
+    stalled.socket().setReceiveBufferSize(4096);
+    stalled.connect(new InetSocketAddress("localhost", port));
+    for (int i = 0; i < viewerCount; i++) {
+      SocketChannel channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+      channel.configureBlocking(false);
+      channel.register(selector, SelectionKey.OP_READ);
+    }
+    while (server.viewerCount() < viewerCount + 1) {
+      Thread.sleep(10);
+    }
+
+    // Reader thread draining every well-behaved viewer
+    long[] received = new long[1];
+    Thread reader = new Thread(() -> {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          selector.select(100);
+          for (SelectionKey key : selector.selectedKeys()) {
+            buffer.clear();
+            int read = ((SocketChannel) key.channel()).read(buffer);
+            if (read > 0) {
+              received[0] += read;
+            }
+          }
+          selector.selectedKeys().clear();
+        }
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    });
+    reader.start();
+
+    SnakeModel model = new SnakeModel();
+    model.reset(1);
+    Random random = new Random(1);
+    long frames = 0;
+    long start = System.nanoTime();
+    long deadline = start + seconds * 1_000_000_000L;
+    while (System.nanoTime() < deadline) {
+      if (!model.alive) {
+        model.reset(random.nextLong());
+      }
+      model.turn(random.nextInt(4));
+      model.step();
+      server.publish(model);
+      frames++;
+      // Pace publishing at roughly 1000 ticks per second
+      Thread.sleep(1);
+    }
+    double elapsed = (System.nanoTime() - start) / 1e9;
+    Thread.sleep(500);
+    reader.interrupt();
+    reader.join();
+
+    System.out.printf("Viewers: %d, frames published: %d (%.0f/s)%n", viewerCount, frames, frames / elapsed);
+    System.out.printf("Delivered: %.1f MB (%.1f MB/s)%n", received[0] / 1e6, received[0] / 1e6 / elapsed);
+    System.out.println("Slow-consumer skips: " + server.skips + ", disconnects: " + server.disconnects);
+    server.stop();
+    stalled.close();
+  }
+}
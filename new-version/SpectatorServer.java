@@ -0,0 +1,319 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * SpectatorServer streams one game's ticks to any number of read-only
+ * viewers. Each tick is encoded once into a shared ring buffer and every
+ * viewer is written from its own view of that buffer, so the cost of a frame
+ * does not grow with the audience. Viewers that fall too far behind are
+ * skipped forward to the latest keyframe rather than buffered for.
+ *
+ * Stream format, all values big-endian:
+ * <pre>
+ * int   length   bytes following this field
+ * byte  type     KEYFRAME or DELTA
+ * int   tick
+ * short apple    apple cell (row * columns + column)
+ * int   score
+ * byte  alive
+ * KEYFRAME: byte direction, short bodyParts, short cell[bodyParts] head first
+ * DELTA:    short head cell, byte grew (tail kept when 1)
+ * </pre>
+ *
+ * A snake that runs into a wall dies without moving, so the frame of a death
+ * is always a KEYFRAME rather than a DELTA.
+ */
+public class SpectatorServer implements Runnable {
+
+  static final byte KEYFRAME = 1;
+  static final byte DELTA = 2;
+
+  // Ticks between keyframes, bounding how long a new or skipped viewer waits
+  static final int KEYFRAME_INTERVAL = 50;
+
+  // Default size of the ring; must hold at least two keyframes of the longest snake
+  static final int CAPACITY = 1 << 18;
+  private static final int FRAME_INDEX = 1 << 14;
+  private static final int SEND_BUFFER = 1 << 15;
+
+  // Frames are appended here once and read by every viewer
+  private final ByteBuffer ring;
+  private final int capacity;
+
+  // Stream offsets of recent frame starts, for finishing a frame before a skip
+  private final long[] frameStarts = new long[FRAME_INDEX];
+  private long frameCount;
+
+  // Stream offset one past the last published byte
+  private volatile long writePos;
+  private volatile long lastKeyframePos = -1;
+
+  private final ServerSocketChannel server;
+  private final Selector selector;
+  private final List<Viewer> viewers = new ArrayList<>();
+  private volatile boolean running = true;
+
+  // Previous tick, used to decide between delta and keyframe
+  private int lastTick = -1;
+  private int lastBodyParts;
+
+  // Statistics
+  volatile int skips;
+  volatile int disconnects;
+
+  /**
+   * A connected viewer and its position in the shared stream.
+   */
+  private static class Viewer {
+    final SocketChannel channel;
+    final ByteBuffer view;
+    long position;
+    long frameEnd = -1;
+
+    Viewer(SocketChannel channel, ByteBuffer view, long position) {
+      this.channel = channel;
+      this.view = view;
+      this.position = position;
+    }
+  }
+
+  /**
+   * Opens the spectator endpoint on the given port.
+   */
+  SpectatorServer(int port) throws IOException {
+    this(port, CAPACITY);
+  }
+
+  /**
+   * Opens the spectator endpoint with a ring of the given size in bytes.
+   */
+  SpectatorServer(int port, int capacity) throws IOException {
+    this.capacity = capacity;
+    ring = ByteBuffer.allocateDirect(capacity);
+    selector = Selector.open();
+    server = ServerSocketChannel.open();
+    server.bind(new InetSocketAddress(port));
+    server.configureBlocking(false);
+    server.register(selector, SelectionKey.OP_ACCEPT);
+  }
+
+  /**
+   * Starts serving viewers on a background thread.
+   */
+  public void start() {
+    Thread thread = new Thread(this, "spectator-server");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Stops serving and closes every viewer connection.
+   */
+  public void stop() {
+    running = false;
+    selector.wakeup();
+  }
+
+  /**
+   * Encodes the state after a tick and makes it available to viewers. Must be
+   * called from a single thread, after every step of the model.
+   */
+  public void publish(SnakeModel model) {
+    long pos = writePos;
+    boolean keyframe = lastTick < 0 || model.tick != lastTick + 1 || model.tick % KEYFRAME_INTERVAL == 0
+        || !model.alive;
+    int length = keyframe ? 15 + 2 * model.bodyParts : 15;
+
+    frameStarts[(int) (frameCount++ % FRAME_INDEX)] = pos;
+    long p = pos;
+    p = putInt(p, length);
+    p = put(p, keyframe ? KEYFRAME : DELTA);
+    p = putInt(p, model.tick);
+    p = putShort(p, SnakeModel.cellOf(model.appleX, model.appleY));
+    p = putInt(p, model.appleEaten);
+    p = put(p, (byte) (model.alive ? 1 : 0));
+    if (keyframe) {
+      p = put(p, (byte) model.direction);
+      p = putShort(p, model.bodyParts);
+      for (int i = 0; i < model.bodyParts; i++) {
+        p = putShort(p, SnakeModel.cellOf(model.x[i], model.y[i]));
+      }
+      lastKeyframePos = pos;
+    } else {
+      p = putShort(p, SnakeModel.cellOf(model.x[0], model.y[0]));
+      p = put(p, (byte) (model.bodyParts > lastBodyParts ? 1 : 0));
+    }
+
+    lastTick = model.tick;
+    lastBodyParts = model.bodyParts;
+    writePos = p;
+    selector.wakeup();
+  }
+
+  @Override
+  public void run() {
+    try {
+      while (running) {
+        selector.select();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          if (key.isValid() && key.isAcceptable()) {
+            accept();
+          }
+        }
+        flush();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      for (Viewer viewer : viewers) {
+        close(viewer);
+      }
+      try {
+        server.close();
+        selector.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Port the endpoint is listening on.
+   */
+  public int port() throws IOException {
+    return ((InetSocketAddress) server.getLocalAddress()).getPort();
+  }
+
+  /**
+   * Number of currently connected viewers.
+   */
+  public int viewerCount() {
+    return viewers.size();
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel;
+    while ((channel = server.accept()) != null) {
+      channel.configureBlocking(false);
+      // Keep kernel buffering small so lag shows up in the ring, not the socket
+      channel.setOption(StandardSocketOptions.SO_SNDBUF, SEND_BUFFER);
+      channel.register(selector, 0);
+      // New viewers start at the latest keyframe, or wait for the first one
+      long start = lastKeyframePos;
+      Viewer viewer = new Viewer(channel, ring.duplicate(), start < 0 ? Long.MAX_VALUE : start);
+      viewers.add(viewer);
+    }
+  }
+
+  /**
+   * Writes whatever each viewer has not received yet, straight from the ring.
+   */
+  private void flush() {
+    long end = writePos;
+    long keyframe = lastKeyframePos;
+
+    for (int i = viewers.size() - 1; i >= 0; i--) {
+      Viewer viewer = viewers.get(i);
+      if (viewer.position == Long.MAX_VALUE) {
+        if (keyframe < 0) {
+          continue;
+        }
+        viewer.position = keyframe;
+      }
+
+      // A viewer more than half a ring behind finishes its current frame and
+      // then jumps to the latest keyframe
+      if (viewer.frameEnd < 0 && end - viewer.position > capacity / 2) {
+        viewer.frameEnd = nextFrameStart(viewer.position);
+        skips++;
+      }
+      if (viewer.frameEnd >= 0 && viewer.position >= viewer.frameEnd) {
+        viewer.position = Math.max(keyframe, viewer.position);
+        viewer.frameEnd = -1;
+      }
+
+      long limit = viewer.frameEnd >= 0 ? viewer.frameEnd : end;
+      long sentFrom = viewer.position;
+      boolean failed = false;
+      try {
+        while (viewer.position < limit) {
+          int offset = (int) (viewer.position % capacity);
+          int count = (int) Math.min(limit - viewer.position, capacity - offset);
+          viewer.view.limit(offset + count).position(offset);
+          int written = viewer.channel.write(viewer.view);
+          viewer.position += written;
+          if (written < count) {
+            break;
+          }
+        }
+      } catch (IOException e) {
+        failed = true;
+      }
+
+      // Bytes overwritten while being sent leave the stream corrupt
+      if (failed || writePos - sentFrom > capacity) {
+        disconnects++;
+        close(viewer);
+        viewers.set(i, viewers.get(viewers.size() - 1));
+        viewers.remove(viewers.size() - 1);
+      }
+    }
+  }
+
+  /**
+   * Finds the first frame boundary at or after the given stream offset.
+   */
+  private long nextFrameStart(long position) {
+    long newest = frameCount - 1;
+    long oldest = Math.max(0, frameCount - FRAME_INDEX);
+    long lo = oldest;
+    long hi = newest;
+    long found = writePos;
+    while (lo <= hi) {
+      long mid = (lo + hi) >>> 1;
+      long start = frameStarts[(int) (mid % FRAME_INDEX)];
+      if (start >= position) {
+        found = start;
+        hi = mid - 1;
+      } else {
+        lo = mid + 1;
+      }
+    }
+    return found;
+  }
+
+  private void close(Viewer viewer) {
+    try {
+      viewer.channel.close();
+    } catch (IOException e) {
+      // Nothing left to do for this viewer
+    }
+  }
+
+  private long put(long pos, byte value) {
+    ring.put((int) (pos % capacity), value);
+    return pos + 1;
+  }
+
+  private long putShort(long pos, int value) {
+    pos = put(pos, (byte) (value >>> 8));
+    return put(pos, (byte) value);
+  }
+
+  private long putInt(long pos, int value) {
+    pos = putShort(pos, value >>> 16);
+    return putShort(pos, value);
+  }
+}
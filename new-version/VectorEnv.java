@@ -0,0 +1,310 @@
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * VectorEnv runs many independent games in lockstep for training agents.
+ * Every game follows the same rules and apple generator as SnakeModel, but
+ * all state lives in flat primitive arrays indexed by game: the body is a
+ * ring buffer of cell indices and a bitset of occupied cells makes the
+ * collision check constant-time. One call to step() advances every game,
+ * split across worker threads, and writes observations into a buffer owned
+ * by the caller. Games that end are reset automatically.
+ */
+public class VectorEnv {
+
+  static final int COLUMNS = SnakeModel.COLUMNS;
+  static final int ROWS = SnakeModel.ROWS;
+  static final int CELLS = COLUMNS * ROWS;
+  private static final int WORDS = (CELLS + 63) / 64;
+
+  // Action meaning "keep going in the current direction"
+  static final int NO_ACTION = -1;
+
+  // Layout of each game's observation
+  static final int OBS_HEAD = 0;
+  static final int OBS_APPLE = 1;
+  static final int OBS_DIRECTION = 2;
+  static final int OBS_LENGTH = 3;
+  static final int OBS_REWARD = 4;
+  static final int OBS_DONE = 5;
+  static final int OBS_DANGER = 6;
+  static final int OBSERVATION_SIZE = 7;
+
+  // Games handed to one worker task
+  private static final int CHUNK = 256;
+
+  private final int games;
+
+  // Per-game state
+  private final int[] body;
+  private final long[] occupied;
+  private final int[] head;
+  private final int[] length;
+  private final int[] direction;
+  private final int[] apple;
+  private final int[] score;
+  private final long[] seed;
+
+  private final ForkJoinPool pool;
+  private final Chunk[] chunks;
+  private final StepAll stepAll = new StepAll();
+
+  // Arguments of the step in progress, read by the worker tasks
+  private int[] currentActions;
+  private int[] currentObservations;
+
+  /**
+   * Steps one slice of the games.
+   */
+  private class Chunk extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    final int from;
+    final int to;
+
+    Chunk(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      stepRange(from, to, currentActions, currentObservations);
+    }
+  }
+
+  /**
+   * Forks every chunk and waits for them.
+   */
+  private class StepAll extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected void compute() {
+      for (Chunk chunk : chunks) {
+        chunk.reinitialize();
+      }
+      invokeAll(chunks);
+    }
+  }
+
+  /**
+   * Creates and resets a batch of games.
+   *
+   * @param games   Number of games stepped together
+   * @param seed    Seed from which every game's apple generator is derived
+   * @param threads Worker threads to use; 1 steps on the calling thread
+   */
+  VectorEnv(int games, long seed, int threads) {
+    this.games = games;
+    body = new int[games * CELLS];
+    occupied = new long[games * WORDS];
+    head = new int[games];
+    length = new int[games];
+    direction = new int[games];
+    apple = new int[games];
+    score = new int[games];
+    this.seed = new long[games];
+
+    pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    chunks = new Chunk[(games + CHUNK - 1) / CHUNK];
+    for (int i = 0; i < chunks.length; i++) {
+      chunks[i] = new Chunk(i * CHUNK, Math.min(games, (i + 1) * CHUNK));
+    }
+
+    for (int g = 0; g < games; g++) {
+      this.seed[g] = gameSeed(seed, g);
+      reset(g);
+    }
+  }
+
+  /**
+   * Apple generator seed of one game. Seeds one increment apart would put the
+   * games on the same SplitMix64 sequence a draw apart, so every game would
+   * see the same apples; finalising them scatters the games across it.
+   */
+  static long gameSeed(long seed, int g) {
+    return SnakeModel.mix(seed + g * SnakeModel.SEED_INCREMENT);
+  }
+
+  /**
+   * Number of games in the batch.
+   */
+  public int games() {
+    return games;
+  }
+
+  /**
+   * Advances every game by one tick.
+   *
+   * @param actions      One direction or NO_ACTION per game
+   * @param observations Receives OBSERVATION_SIZE values per game
+   * @throws IllegalArgumentException if an action is not a direction or
+   *                                  NO_ACTION; no game is stepped then
+   */
+  public void step(int[] actions, int[] observations) {
+    for (int g = 0; g < games; g++) {
+      if (actions[g] < NO_ACTION || actions[g] > SnakeModel.RIGHT) {
+        throw new IllegalArgumentException("Invalid action " + actions[g] + " for game " + g);
+      }
+    }
+    if (pool == null) {
+      stepRange(0, games, actions, observations);
+      return;
+    }
+    currentActions = actions;
+    currentObservations = observations;
+    stepAll.reinitialize();
+    pool.invoke(stepAll);
+  }
+
+  /**
+   * Writes the current observation of every game without stepping.
+   */
+  public void observe(int[] observations) {
+    for (int g = 0; g < games; g++) {
+      observe(g, 0, false, observations);
+    }
+  }
+
+  /**
+   * Releases the worker threads.
+   */
+  public void close() {
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  private void stepRange(int from, int to, int[] actions, int[] observations) {
+    for (int g = from; g < to; g++) {
+      int reward = stepGame(g, actions[g]);
+      boolean done = reward < 0;
+      if (done) {
+        reset(g);
+      }
+      observe(g, reward, done, observations);
+    }
+  }
+
+  /**
+   * Applies the rules of SnakeModel.step() to one game.
+   *
+   * @return 1 if an apple was eaten, -1 if the snake died, 0 otherwise
+   */
+  private int stepGame(int g, int action) {
+    if (action != NO_ACTION && (action ^ direction[g]) != 1) {
+      // UP/DOWN and LEFT/RIGHT differ only in the lowest bit
+      direction[g] = action;
+    }
+
+    int base = g * CELLS;
+    int headCell = body[base + head[g]];
+    int row = headCell / COLUMNS;
+    int column = headCell - row * COLUMNS;
+    switch (direction[g]) {
+      case SnakeModel.UP -> row = row == 0 ? ROWS - 1 : row - 1;
+      case SnakeModel.DOWN -> row = row == ROWS - 1 ? 0 : row + 1;
+      case SnakeModel.LEFT -> column = column == 0 ? COLUMNS - 1 : column - 1;
+      case SnakeModel.RIGHT -> column = column == COLUMNS - 1 ? 0 : column + 1;
+    }
+    int newHead = row * COLUMNS + column;
+
+    boolean ate = newHead == apple[g];
+    if (!ate) {
+      int tail = head[g] - length[g] + 1;
+      clear(g, body[base + (tail < 0 ? tail + CELLS : tail)]);
+    }
+    boolean died = isSet(g, newHead);
+
+    head[g] = head[g] == CELLS - 1 ? 0 : head[g] + 1;
+    body[base + head[g]] = newHead;
+    set(g, newHead);
+
+    if (ate) {
+      length[g]++;
+      score[g]++;
+      placeApple(g);
+    }
+    return died ? -1 : ate ? 1 : 0;
+  }
+
+  private void reset(int g) {
+    int base = g * CELLS;
+    for (int w = 0; w < WORDS; w++) {
+      occupied[g * WORDS + w] = 0;
+    }
+    length[g] = SnakeModel.INITIAL_BODY_PARTS;
+    direction[g] = SnakeModel.RIGHT;
+    score[g] = 0;
+    head[g] = length[g] - 1;
+
+    int start = (ROWS / 2) * COLUMNS + COLUMNS / 2;
+    for (int i = 0; i < length[g]; i++) {
+      body[base + head[g] - i] = start - i;
+      set(g, start - i);
+    }
+    placeApple(g);
+  }
+
+  /**
+   * Places the apple on a free cell, drawing from the same stream as
+   * SnakeModel.newApple().
+   */
+  private void placeApple(int g) {
+    if (length[g] >= CELLS) {
+      apple[g] = -1;
+      return;
+    }
+    int cell;
+    do {
+      int column = nextInt(g, COLUMNS);
+      int row = nextInt(g, ROWS);
+      cell = row * COLUMNS + column;
+    } while (isSet(g, cell));
+    apple[g] = cell;
+  }
+
+  private void observe(int g, int reward, boolean done, int[] observations) {
+    int o = g * OBSERVATION_SIZE;
+    int headCell = body[g * CELLS + head[g]];
+    observations[o + OBS_HEAD] = headCell;
+    observations[o + OBS_APPLE] = apple[g];
+    observations[o + OBS_DIRECTION] = direction[g];
+    observations[o + OBS_LENGTH] = length[g];
+    observations[o + OBS_REWARD] = reward;
+    observations[o + OBS_DONE] = done ? 1 : 0;
+
+    // Occupied neighbours, one bit per direction
+    int row = headCell / COLUMNS;
+    int column = headCell - row * COLUMNS;
+    int up = (row == 0 ? ROWS - 1 : row - 1) * COLUMNS + column;
+    int down = (row == ROWS - 1 ? 0 : row + 1) * COLUMNS + column;
+    int left = row * COLUMNS + (column == 0 ? COLUMNS - 1 : column - 1);
+    int right = row * COLUMNS + (column == COLUMNS - 1 ? 0 : column + 1);
+    observations[o + OBS_DANGER] = (isSet(g, up) ? 1 << SnakeModel.UP : 0)
+        | (isSet(g, down) ? 1 << SnakeModel.DOWN : 0)
+        | (isSet(g, left) ? 1 << SnakeModel.LEFT : 0)
+        | (isSet(g, right) ? 1 << SnakeModel.RIGHT : 0);
+  }
+
+  private boolean isSet(int g, int cell) {
+    return (occupied[g * WORDS + (cell >>> 6)] & (1L << cell)) != 0;
+  }
+
+  private void set(int g, int cell) {
+    occupied[g * WORDS + (cell >>> 6)] |= 1L << cell;
+  }
+
+  private void clear(int g, int cell) {
+    occupied[g * WORDS + (cell >>> 6)] &= ~(1L << cell);
+  }
+
+  /**
+   * Same SplitMix64 draw as SnakeModel, on this game's generator state.
+   */
+  private int nextInt(int g, int bound) {
+    seed[g] += SnakeModel.SEED_INCREMENT;
+    return SnakeModel.draw(seed[g], bound);
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * VectorEnvBench checks that VectorEnv plays the same games as SnakeModel and
+ * measures game-steps per second with one thread and with every core.
+ *
+ * Usage: java VectorEnvBench [games] [steps]
+ */
+public class VectorEnvBench {
+
+  public static void main(String[] args) {
+    int games = args.length > 0 ? Integer.parseInt(args[0]) : 16384;
+    int steps = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+    System.out.println("Matches SnakeModel: " + matchesModel(1000));
+
+    int cores = Runtime.getRuntime().availableProcessors();
+    for (int threads : cores > 1 ? new int[] { 1, cores } : new int[] { 1 }) {
+      VectorEnv env = new VectorEnv(games, 42, threads);
+      int[] observations = new int[games * VectorEnv.OBSERVATION_SIZE];
+      int[] actions = new int[games];
+      long eaten = 0;
+
+      // Warm up, then time
+      run(env, actions, observations, steps / 4);
+      long start = System.nanoTime();
+      eaten += run(env, actions, observations, steps);
+      double seconds = (System.nanoTime() - start) / 1e9;
+      env.close();
+
+      System.out.printf("%2d thread(s): %,.0f game-steps/s (%d games, %d apples)%n",
+          threads, (double) games * steps / seconds, games, eaten);
+    }
+  }
+
+  /**
+   * Steps every game with a cheap greedy policy read from the observations.
+   *
+   * @return Apples eaten
+   */
+  private static long run(VectorEnv env, int[] actions, int[] observations, int steps) {
+    long eaten = 0;
+    env.observe(observations);
+    for (int step = 0; step < steps; step++) {
+      for (int g = 0; g < actions.length; g++) {
+        actions[g] = greedy(observations, g * VectorEnv.OBSERVATION_SIZE);
+      }
+      env.step(actions, observations);
+      for (int g = 0; g < actions.length; g++) {
+        if (observations[g * VectorEnv.OBSERVATION_SIZE + VectorEnv.OBS_REWARD] > 0) {
+          eaten++;
+        }
+      }
+    }
+    return eaten;
+  }
+
+  /**
+   * Heads for the apple's column, then its row, avoiding occupied neighbours.
+   */
+  private static int greedy(int[] observations, int o) {
+    int head = observations[o + VectorEnv.OBS_HEAD];
+    int apple = observations[o + VectorEnv.OBS_APPLE];
+    int danger = observations[o + VectorEnv.OBS_DANGER];
+    int wanted;
+    if (apple % VectorEnv.COLUMNS != head % VectorEnv.COLUMNS) {
+      wanted = apple % VectorEnv.COLUMNS < head % VectorEnv.COLUMNS ? SnakeModel.LEFT : SnakeModel.RIGHT;
+    } else {
+      wanted = apple < head ? SnakeModel.UP : SnakeModel.DOWN;
+    }
+    if ((danger & (1 << wanted)) == 0) {
+      return wanted;
+    }
+    for (int direction = 0; direction < 4; direction++) {
+      if ((danger & (1 << direction)) == 0) {
+        return direction;
+      }
+    }
+    return VectorEnv.NO_ACTION;
+  }
+
+  /**
+   * Plays one game in both implementations with the same inputs and compares
+   * head and apple after every tick until the first death.
+   */
+  private static boolean matchesModel(int steps) {
+    VectorEnv env = new VectorEnv(1, 7, 1);
+    SnakeModel model = new SnakeModel();
+    model.reset(VectorEnv.gameSeed(7, 0));
+    int[] observations = new int[VectorEnv.OBSERVATION_SIZE];
+    int[] actions = new int[1];
+    env.observe(observations);
+
+    for (int step = 0; step < steps; step++) {
+      actions[0] = greedy(observations, 0);
+      if (actions[0] != VectorEnv.NO_ACTION) {
+        model.turn(actions[0]);
+      }
+      int events = model.step();
+      env.step(actions, observations);
+      if (((events & SnakeModel.DIED) != 0) != (observations[VectorEnv.OBS_DONE] == 1)) {
+        return false;
+      }
+      if ((events & SnakeModel.DIED) != 0) {
+        return true;
+      }
+      if (observations[VectorEnv.OBS_HEAD] != SnakeModel.cellOf(model.x[0], model.y[0])
+          || observations[VectorEnv.OBS_APPLE] != SnakeModel.cellOf(model.appleX, model.appleY)
+          || observations[VectorEnv.OBS_LENGTH] != model.bodyParts) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
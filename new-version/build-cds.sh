@@ -0,0 +1,22 @@
+#!/bin/sh
+# Builds snake.jar and an AppCDS archive of the classes loaded up to the
+# first frame, so later launches map them instead of loading and verifying
+# them again. Class data sharing only archives classes loaded from jars.
+#
+# Usage: ./build-cds.sh, then: java -XX:SharedArchiveFile=snake.jsa -jar snake.jar
+set -e
+cd "$(dirname "$0")"
+
+mkdir -p build
+javac -d build *.java
+cp -r asset build/
+jar --create --file snake.jar --main-class SnakeGame -C build .
+
+# Training run: starts the game, waits for warm-up and the first frame, exits.
+# It runs in a scratch directory, so it neither resumes the player's autosave
+# nor leaves save or log files behind.
+here=$(pwd)
+scratch=$(mktemp -d)
+trap 'rm -rf "$scratch"' EXIT
+(cd "$scratch" && java -XX:ArchiveClassesAtExit="$here/snake.jsa" -Dsnake.exitAfterFirstFrame=true \
+  -jar "$here/snake.jar")